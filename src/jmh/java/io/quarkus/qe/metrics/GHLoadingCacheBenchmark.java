@@ -0,0 +1,62 @@
+package io.quarkus.qe.metrics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repository details cache path used by every BASE gauge, measured from several threads like parallel refresh does
+ *
+ * Run with: mvn -Pjmh test-compile exec:exec -Djmh.args="GHLoadingCacheBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class GHLoadingCacheBenchmark {
+
+    private static final int REPOSITORIES = 1000;
+
+    private String[] names;
+    private GHLoadingCache<GHRepositoryBaseMetrics.GHRepository> cache;
+    private GHLoadingCache<GHRepositoryBaseMetrics.GHRepository> expiringCache;
+
+    @Setup
+    public void setup() {
+        names = new String[REPOSITORIES];
+        for (int i = 0; i < REPOSITORIES; i++) {
+            names[i] = "benchmark/repository-" + i;
+        }
+        int[] values = {4328, 1026, 788, 170, 50593};
+        cache = new GHLoadingCache<>(name -> new GHRepositoryBaseMetrics.GHRepository(values), TimeUnit.HOURS.toMillis(1), 0.1, REPOSITORIES);
+        // every access reloads, measures the single-flight load path
+        expiringCache = new GHLoadingCache<>(name -> new GHRepositoryBaseMetrics.GHRepository(values), 0, 0, REPOSITORIES);
+        for (String name : names) {
+            cache.get(name);
+        }
+    }
+
+    @Benchmark
+    public GHRepositoryBaseMetrics.GHRepository hit() {
+        return cache.get(names[ThreadLocalRandom.current().nextInt(REPOSITORIES)]);
+    }
+
+    @Benchmark
+    public GHRepositoryBaseMetrics.GHRepository reload() {
+        return expiringCache.get(names[ThreadLocalRandom.current().nextInt(REPOSITORIES)]);
+    }
+}
@@ -0,0 +1,89 @@
+package io.quarkus.qe.metrics;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonReaderFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extraction of counts from recorded GitHub responses, DOM based parsing is kept as a baseline for the streaming one
+ *
+ * Run with: mvn -Pjmh test-compile exec:exec -Djmh.args="GHUtilsBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GHUtilsBenchmark {
+
+    private static final JsonReaderFactory readerFactory = Json.createReaderFactory(Collections.emptyMap());
+    private static final String LINK = "<https://api.github.com/repositories/139914932/pulls?per_page=1&page=2>; rel=\"next\", "
+            + "<https://api.github.com/repositories/139914932/pulls?per_page=1&page=12345>; rel=\"last\"";
+
+    private byte[] search;
+    private byte[] repository;
+
+    @Setup
+    public void setup() throws IOException {
+        search = read("search-issues.json");
+        repository = read("repos.json");
+    }
+
+    @Benchmark
+    public int countFromLinkHeader() {
+        return GHUtils.countFromLinkHeader(LINK, "[{}]");
+    }
+
+    @Benchmark
+    public int searchTotalCountDOM() {
+        try (JsonReader jsonReader = readerFactory.createReader(new ByteArrayInputStream(search))) {
+            return jsonReader.readObject().getInt("total_count");
+        }
+    }
+
+    @Benchmark
+    public int searchTotalCountStreaming() {
+        return GHUtils.extractTotalCount(new ByteArrayInputStream(search));
+    }
+
+    @Benchmark
+    public int repositoryFieldsDOM() {
+        try (JsonReader jsonReader = readerFactory.createReader(new ByteArrayInputStream(repository))) {
+            JsonObject rootJSON = jsonReader.readObject();
+            int sum = 0;
+            for (String field : GHRepositoryBaseMetrics.GHRepository.FIELDS) {
+                sum += rootJSON.getInt(field);
+            }
+            return sum;
+        }
+    }
+
+    @Benchmark
+    public int[] repositoryFieldsStreaming() {
+        return GHUtils.extractIntFields(new ByteArrayInputStream(repository), GHRepositoryBaseMetrics.GHRepository.FIELDS);
+    }
+
+    private static byte[] read(String name) throws IOException {
+        try (InputStream json = GHUtilsTest.payload(name)) {
+            return json.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package io.quarkus.qe.metrics;
+
+import io.smallrye.metrics.exporters.OpenMetricsExporter;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering of /metrics for many repositories, values are fetched once from {@link GHSimulator} before measurement
+ *
+ * Run with: mvn -Pjmh test-compile exec:exec -Djmh.args="ScrapeBenchmark -p repositories=1000 -p level=VERBOSE"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScrapeBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    int repositories;
+
+    @Param({"BASE", "ADVANCED", "VERBOSE"})
+    GitHubMetrics.GHDetailsLevel level;
+
+    private GHSimulator simulator;
+    private GHExporterFixture exporter;
+    private OpenMetricsExporter openMetricsExporter;
+
+    @Setup
+    public void setup() throws IOException {
+        simulator = new GHSimulator()
+                .coreLimit(Integer.MAX_VALUE, Duration.ofHours(1))
+                .searchLimit(Integer.MAX_VALUE, Duration.ofMinutes(1));
+        exporter = new GHExporterFixture(simulator.getUrl(), 64);
+        exporter.registerRepositories(repositories, level);
+        exporter.collector.refresh();
+        openMetricsExporter = new OpenMetricsExporter();
+    }
+
+    @TearDown
+    public void tearDown() {
+        exporter.close();
+        simulator.close();
+    }
+
+    @Benchmark
+    public StringBuilder renderOpenMetrics() {
+        return openMetricsExporter.exportAllScopes();
+    }
+
+    @Benchmark
+    public int preRendered() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exporter.exposition.get().write(output, true);
+        return output.size();
+    }
+
+    @Benchmark
+    public long evaluateGauges() {
+        long sum = 0;
+        for (Gauge<?> gauge : exporter.registry.getGauges().values()) {
+            sum += ((Number) gauge.getValue()).longValue();
+        }
+        return sum;
+    }
+}
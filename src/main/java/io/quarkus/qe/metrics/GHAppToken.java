@@ -0,0 +1,158 @@
+package io.quarkus.qe.metrics;
+
+import org.jboss.logging.Logger;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Installation access token of GitHub App, created on demand and renewed shortly before it expires
+ *
+ * The token is requested with JWT signed by the private key of the App, see
+ * https://docs.github.com/en/apps/creating-github-apps/authenticating-with-a-github-app/authenticating-as-a-github-app-installation
+ */
+public class GHAppToken extends GHToken {
+
+    private static final Logger log = Logger.getLogger(GHAppToken.class);
+    private static final Duration RENEW_BEFORE_EXPIRATION = Duration.ofMinutes(5);
+
+    private final String appId;
+    private final PrivateKey privateKey;
+    private final String accessTokensUrl;
+    private final HttpClient httpClient;
+
+    private String token;
+    private Instant expiresAt = Instant.MIN;
+
+    public GHAppToken(String apiUrl, String appId, String installationId, PrivateKey privateKey, HttpClient httpClient) {
+        super("app-" + installationId, null);
+        this.appId = appId;
+        this.privateKey = privateKey;
+        this.accessTokensUrl = apiUrl + "/app/installations/" + installationId + "/access_tokens";
+        this.httpClient = httpClient;
+    }
+
+    @Override
+    public synchronized String getValue() {
+        if (Instant.now().isAfter(expiresAt.minus(RENEW_BEFORE_EXPIRATION))) {
+            renew();
+        }
+        return token;
+    }
+
+    private void renew() {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(accessTokensUrl))
+                .header("Authorization", "Bearer " + jwt(appId, privateKey, Instant.now()))
+                .header("Accept", "application/vnd.github+json")
+                .header("User-Agent", "github-metrics")
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        try {
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 201) {
+                // 4xx means rejected credentials of the App, callers tell it from server errors by the status code
+                throw new GHRequestException(GHEndpointFamily.CORE, response.statusCode(),
+                        "Unable to create installation token " + getId() + ", status code " + response.statusCode());
+            }
+            try (JsonReader reader = Json.createReader(new ByteArrayInputStream(response.body()))) {
+                JsonObject json = reader.readObject();
+                token = json.getString("token");
+                expiresAt = Instant.parse(json.getString("expires_at"));
+            }
+            log.debug("Installation token " + getId() + " renewed, expires at " + expiresAt);
+        } catch (IOException e) {
+            throw new GHRequestException(GHEndpointFamily.CORE, "Unable to create installation token " + getId(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Unable to create installation token " + getId(), e);
+        }
+    }
+
+    /**
+     * RS256 signed JWT valid for 9 minutes, issued 60 seconds in the past to allow for clock drift
+     */
+    static String jwt(String appId, PrivateKey privateKey, Instant now) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String header = encoder.encodeToString("{\"alg\":\"RS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+        String payload = encoder.encodeToString(Json.createObjectBuilder()
+                .add("iat", now.getEpochSecond() - 60)
+                .add("exp", now.getEpochSecond() + 540)
+                .add("iss", appId)
+                .build().toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initSign(privateKey);
+            signature.update((header + "." + payload).getBytes(StandardCharsets.US_ASCII));
+            return header + "." + payload + "." + encoder.encodeToString(signature.sign());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to sign JWT", e);
+        }
+    }
+
+    /**
+     * Read RSA private key from PEM, both PKCS#8 and PKCS#1 (format of keys generated by GitHub) are supported
+     */
+    static PrivateKey readPrivateKey(String pem) throws GeneralSecurityException {
+        boolean pkcs1 = pem.contains("BEGIN RSA PRIVATE KEY");
+        byte[] der = Base64.getMimeDecoder().decode(pem.replaceAll("-----[A-Z ]+-----", "").trim());
+        if (pkcs1) {
+            der = pkcs1ToPkcs8(der);
+        }
+        return KeyFactory.getInstance("RSA").generatePrivate(new PKCS8EncodedKeySpec(der));
+    }
+
+    /**
+     * PrivateKeyInfo ::= SEQUENCE { version INTEGER 0, algorithm SEQUENCE { rsaEncryption OID, NULL }, key OCTET STRING }
+     */
+    private static byte[] pkcs1ToPkcs8(byte[] pkcs1) {
+        byte[] version = {0x02, 0x01, 0x00};
+        byte[] algorithm = {0x30, 0x0d, 0x06, 0x09, 0x2a, (byte) 0x86, 0x48, (byte) 0x86, (byte) 0xf7, 0x0d, 0x01, 0x01, 0x01, 0x05, 0x00};
+        ByteArrayOutputStream key = new ByteArrayOutputStream();
+        key.write(0x04);
+        writeLength(key, pkcs1.length);
+        key.writeBytes(pkcs1);
+
+        ByteArrayOutputStream info = new ByteArrayOutputStream();
+        info.write(0x30);
+        writeLength(info, version.length + algorithm.length + key.size());
+        info.writeBytes(version);
+        info.writeBytes(algorithm);
+        info.writeBytes(key.toByteArray());
+        return info.toByteArray();
+    }
+
+    private static void writeLength(ByteArrayOutputStream out, int length) {
+        if (length < 0x80) {
+            out.write(length);
+        } else if (length < 0x100) {
+            out.write(0x81);
+            out.write(length);
+        } else if (length < 0x10000) {
+            out.write(0x82);
+            out.write(length >> 8);
+            out.write(length);
+        } else {
+            out.write(0x83);
+            out.write(length >> 16);
+            out.write(length >> 8);
+            out.write(length);
+        }
+    }
+}
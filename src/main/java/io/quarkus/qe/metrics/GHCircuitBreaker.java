@@ -0,0 +1,153 @@
+package io.quarkus.qe.metrics;
+
+import org.jboss.logging.Logger;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Circuit breaker of one {@link GHEndpointFamily}, requests are not sent while GitHub keeps failing or rate limiting
+ *
+ * The circuit opens after failureThreshold consecutive failures (I/O errors, 5xx) or at once when the family is
+ * rate limited (429, 403 secondary rate limit). It stays open for at least Retry-After and at least the backoff,
+ * which starts at initialBackoff and doubles with every open in a row up to maxBackoff. A random part of up to
+ * jitter (fraction) is added, so replicas do not come back at the same moment. After that one trial request is let
+ * through, its success closes the circuit, its failure opens it again with the next backoff.
+ */
+public class GHCircuitBreaker {
+
+    private static final Logger log = Logger.getLogger(GHCircuitBreaker.class);
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final GHEndpointFamily family;
+    private final int failureThreshold;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final double jitter;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    // opens since the circuit was closed last time, drives the backoff
+    private int consecutiveOpens;
+    private long openUntil;
+    private boolean trialInFlight;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder opened = new LongAdder();
+
+    public GHCircuitBreaker(GHEndpointFamily family, int failureThreshold, long initialBackoffMillis, long maxBackoffMillis,
+                            double jitter) {
+        this.family = family;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.jitter = jitter;
+    }
+
+    /**
+     * Permit one request, moves open circuit to half-open once its time is over
+     *
+     * @throws GHCircuitOpenException when the circuit is open or the trial request of half-open circuit is in flight
+     */
+    public synchronized void acquire() {
+        long now = System.currentTimeMillis();
+        if (state == State.OPEN && now >= openUntil) {
+            state = State.HALF_OPEN;
+        }
+        if (state == State.CLOSED) {
+            return;
+        }
+        if (state == State.HALF_OPEN && !trialInFlight) {
+            trialInFlight = true;
+            log.debug("Circuit of " + family + " endpoints half-open, sending trial request");
+            return;
+        }
+        rejected.increment();
+        throw new GHCircuitOpenException(family, Math.max(0, openUntil - now));
+    }
+
+    /**
+     * Permitted request was not sent, e.g. because the rate limit budget of the token is exhausted
+     */
+    public synchronized void release() {
+        trialInFlight = false;
+    }
+
+    /**
+     * GitHub answered the request, including client errors which say nothing about health of the endpoints
+     */
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state != State.CLOSED) {
+            log.info("Circuit of " + family + " endpoints closed");
+        }
+        state = State.CLOSED;
+        consecutiveOpens = 0;
+        trialInFlight = false;
+    }
+
+    /**
+     * Request failed with I/O error or server error
+     */
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            open(0);
+        }
+    }
+
+    /**
+     * Endpoints of the family are rate limited, the circuit opens at once for at least retryAfterMillis
+     */
+    public synchronized void onRateLimited(long retryAfterMillis) {
+        open(retryAfterMillis);
+    }
+
+    private void open(long retryAfterMillis) {
+        long now = System.currentTimeMillis();
+        if (state == State.OPEN) {
+            // responses of requests sent before the circuit opened do not extend the backoff
+            openUntil = Math.max(openUntil, now + retryAfterMillis);
+            return;
+        }
+        long waitMillis = Math.max(retryAfterMillis, backoff(initialBackoffMillis, maxBackoffMillis, consecutiveOpens));
+        waitMillis += (long) (waitMillis * jitter * ThreadLocalRandom.current().nextDouble());
+        state = State.OPEN;
+        openUntil = now + waitMillis;
+        consecutiveOpens++;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+        opened.increment();
+        log.warn("Circuit of " + family + " endpoints open for " + waitMillis / 1000 + " s");
+    }
+
+    /**
+     * Backoff of the given open in a row, initialBackoff doubled with every open up to maxBackoff
+     */
+    static long backoff(long initialBackoffMillis, long maxBackoffMillis, int consecutiveOpens) {
+        long backoff = initialBackoffMillis;
+        for (int i = 0; i < consecutiveOpens && backoff < maxBackoffMillis; i++) {
+            backoff *= 2;
+        }
+        return Math.min(backoff, maxBackoffMillis);
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.currentTimeMillis() >= openUntil) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getOpened() {
+        return opened.sum();
+    }
+}
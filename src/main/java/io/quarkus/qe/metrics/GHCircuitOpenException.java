@@ -0,0 +1,26 @@
+package io.quarkus.qe.metrics;
+
+/**
+ * Request was not sent as the circuit of given endpoint family is open
+ */
+public class GHCircuitOpenException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final GHEndpointFamily family;
+    private final long openForMillis;
+
+    public GHCircuitOpenException(GHEndpointFamily family, long openForMillis) {
+        super("Circuit of " + family + " endpoints open, next attempt in " + openForMillis / 1000 + " s");
+        this.family = family;
+        this.openForMillis = openForMillis;
+    }
+
+    public GHEndpointFamily getFamily() {
+        return family;
+    }
+
+    public long getOpenForMillis() {
+        return openForMillis;
+    }
+}
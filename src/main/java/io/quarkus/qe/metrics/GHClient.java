@@ -0,0 +1,632 @@
+package io.quarkus.qe.metrics;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonReaderFactory;
+import jakarta.json.JsonValue;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Client for GitHub REST and GraphQL API
+ *
+ * One shared {@link HttpClient} keeps connections alive and multiplexes requests over HTTP/2, so TLS handshake is not
+ * repeated for every request. Every request passes through rate limit budget tracking and conditional request cache.
+ * The token of every request is selected by {@link GHTokenPool}, latency, status codes and size of responses are
+ * counted by {@link GHRequestStats}.
+ *
+ * All methods have CompletableFuture variant, it does not block the caller even when the request waits for reset
+ * of the rate limit window. Failed requests throw {@link GHRequestException} (the future completes
+ * exceptionally), so callers keep their last known value instead of reporting 0. Requests of an endpoint family
+ * pass through its {@link GHCircuitBreaker}, requests rejected by open circuit throw {@link GHCircuitOpenException}
+ * without reaching GitHub.
+ */
+@ApplicationScoped
+public class GHClient {
+
+    private static final Logger log = Logger.getLogger(GHClient.class);
+    private static final JsonReaderFactory readerFactory = Json.createReaderFactory(Collections.emptyMap());
+    // blocking variants acquire the token on the calling thread
+    private static final Executor CALLER = Runnable::run;
+
+    @ConfigProperty(name = "gh.api.url", defaultValue = "https://api.github.com")
+    String apiUrl;
+    @ConfigProperty(name = "gh.http.connect-timeout", defaultValue = "10s")
+    Duration connectTimeout;
+    @ConfigProperty(name = "gh.http.read-timeout", defaultValue = "30s")
+    Duration readTimeout;
+    @ConfigProperty(name = "gh.cache.max-entries", defaultValue = "10000")
+    int cacheMaxEntries;
+    // ETag covers only response body, counts extracted from Link header need full request from time to time
+    @ConfigProperty(name = "gh.cache.link-header.max-age", defaultValue = "10m")
+    Duration linkHeaderCacheMaxAge;
+    @ConfigProperty(name = "gh.circuit-breaker.enabled", defaultValue = "true")
+    boolean circuitBreakerEnabled;
+    @ConfigProperty(name = "gh.circuit-breaker.failure-threshold", defaultValue = "5")
+    int circuitBreakerFailureThreshold;
+    @ConfigProperty(name = "gh.circuit-breaker.initial-backoff", defaultValue = "1m")
+    Duration circuitBreakerInitialBackoff;
+    @ConfigProperty(name = "gh.circuit-breaker.max-backoff", defaultValue = "30m")
+    Duration circuitBreakerMaxBackoff;
+    @ConfigProperty(name = "gh.circuit-breaker.jitter", defaultValue = "0.2")
+    double circuitBreakerJitter;
+
+    @Inject
+    GHTokenPool tokenPool;
+
+    final GHResponseCache responseCache = new GHResponseCache(10_000);
+    final GHRequestStats requestStats = new GHRequestStats();
+    private final Map<GHEndpointFamily, GHCircuitBreaker> circuitBreakers = new EnumMap<>(GHEndpointFamily.class);
+    private HttpClient httpClient;
+    private ExecutorService acquireExecutor;
+
+    @PostConstruct
+    void init() {
+        if (apiUrl.endsWith("/")) {
+            apiUrl = apiUrl.substring(0, apiUrl.length() - 1);
+        }
+        responseCache.setMaxEntries(cacheMaxEntries);
+        for (GHEndpointFamily family : GHEndpointFamily.values()) {
+            circuitBreakers.put(family, new GHCircuitBreaker(family, circuitBreakerFailureThreshold,
+                    circuitBreakerInitialBackoff.toMillis(), circuitBreakerMaxBackoff.toMillis(), circuitBreakerJitter));
+        }
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        acquireExecutor = createExecutor();
+    }
+
+    /**
+     * Virtual threads are available since Java 21, daemon threads are created on demand on older runtimes
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "gh-client-acquire");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public String getApiUrl() {
+        return apiUrl;
+    }
+
+    public GHTokenPool getTokenPool() {
+        return tokenPool;
+    }
+
+    public GHResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    public GHRequestStats getRequestStats() {
+        return requestStats;
+    }
+
+    public boolean isCircuitBreakerEnabled() {
+        return circuitBreakerEnabled;
+    }
+
+    public GHCircuitBreaker getCircuitBreaker(GHEndpointFamily family) {
+        return circuitBreakers.get(family);
+    }
+
+    public int extractCountFromJSON(URL url) {
+        return join(extractCountFromJSONAsync(url, true, CALLER));
+    }
+
+    /**
+     * Same as {@link #extractCountFromJSON(URL)} without conditional request and caching of the response, for URLs
+     * which are never requested again (e.g. searches relative to current time)
+     */
+    public int extractUncachedCountFromJSON(URL url) {
+        return join(extractCountFromJSONAsync(url, false, CALLER));
+    }
+
+    public CompletableFuture<Integer> extractCountFromJSONAsync(URL url) {
+        return extractCountFromJSONAsync(url, true, acquireExecutor);
+    }
+
+    private CompletableFuture<Integer> extractCountFromJSONAsync(URL url, boolean cached, Executor executor) {
+        GHEndpointFamily family = GHEndpointFamily.of(url);
+        return withToken(family, executor, token ->
+                send(family, () -> request(token, url, cached), HttpResponse.BodyHandlers.ofInputStream())
+                        .handle((response, failure) -> {
+                            check(url, family, token, response, failure);
+                            if (response.statusCode() == 304) {
+                                closeQuietly(response);
+                                return notModified(family, url);
+                            }
+                            try (InputStream body = requestStats.counting(family, response.body())) {
+                                int count = GHUtils.extractTotalCount(body);
+                                if (cached) {
+                                    cacheResponse(url, response.headers(), count, Long.MAX_VALUE);
+                                }
+                                return count;
+                            } catch (IOException | RuntimeException e) {
+                                throw new GHRequestException(family, "Unexpected data from URL " + url, e);
+                            }
+                        }));
+    }
+
+    /**
+     * Read top level int fields of JSON object
+     */
+    public int[] extractFieldsFromJSON(URL url, String... fields) {
+        return join(extractFieldsFromJSONAsync(url, CALLER, fields));
+    }
+
+    public CompletableFuture<int[]> extractFieldsFromJSONAsync(URL url, String... fields) {
+        return extractFieldsFromJSONAsync(url, acquireExecutor, fields);
+    }
+
+    private CompletableFuture<int[]> extractFieldsFromJSONAsync(URL url, Executor executor, String... fields) {
+        GHEndpointFamily family = GHEndpointFamily.of(url);
+        return withToken(family, executor, token ->
+                send(family, () -> request(token, url, true), HttpResponse.BodyHandlers.ofInputStream())
+                        .handle((response, failure) -> {
+                            check(url, family, token, response, failure);
+                            if (response.statusCode() == 304) {
+                                closeQuietly(response);
+                                return notModified(family, url);
+                            }
+                            try (InputStream body = requestStats.counting(family, response.body())) {
+                                int[] values = GHUtils.extractIntFields(body, fields);
+                                cacheResponse(url, response.headers(), values, Long.MAX_VALUE);
+                                return values;
+                            } catch (IOException | RuntimeException e) {
+                                throw new GHRequestException(family, "Unexpected data from URL " + url, e);
+                            }
+                        }));
+    }
+
+    public int extractCountFromLinkHeader(URL url) {
+        return join(extractCountFromLinkHeaderAsync(url, CALLER));
+    }
+
+    public CompletableFuture<Integer> extractCountFromLinkHeaderAsync(URL url) {
+        return extractCountFromLinkHeaderAsync(url, acquireExecutor);
+    }
+
+    private CompletableFuture<Integer> extractCountFromLinkHeaderAsync(URL url, Executor executor) {
+        GHEndpointFamily family = GHEndpointFamily.of(url);
+        return withToken(family, executor, token ->
+                send(family, () -> request(token, url, true), HttpResponse.BodyHandlers.ofString())
+                        .handle((response, failure) -> {
+                            check(url, family, token, response, failure);
+                            if (response.statusCode() == 304) {
+                                return notModified(family, url);
+                            }
+                            requestStats.addBytesRead(family, response.body().length());
+                            try {
+                                int count = GHUtils.countFromLinkHeader(response.headers().firstValue("Link").orElse(null), response.body());
+                                cacheResponse(url, response.headers(), count, linkHeaderCacheMaxAge.toMillis());
+                                return count;
+                            } catch (RuntimeException e) {
+                                throw new GHRequestException(family, "Unexpected data from URL " + url, e);
+                            }
+                        }));
+    }
+
+    /**
+     * Names of non-archived repositories of the listing (e.g. /orgs/{org}/repos), all pages are read one by one
+     *
+     * Throws {@link GHRequestException} when any page could not be read, so a failed listing is not mistaken for an empty one.
+     */
+    public List<String> listRepositoryNames(URL firstPage) {
+        List<String> names = new ArrayList<>();
+        listAllPages(firstPage, GHUtils::extractRepositoryNames, names::addAll);
+        return names;
+    }
+
+    /**
+     * One page of issues and PRs of the listing (e.g. /repos/{owner}/{repo}/issues?state=all), returns URL of the next
+     * page from Link header, null for the last page
+     *
+     * Label names are mapped to ids by labelIds. Following pages are left to the caller, so it can continue
+     * from its own cursor instead of the page number. Only cached pages are requested conditionally, pages which
+     * are read once (e.g. pages of the seed) would just push other responses out of the cache.
+     * Throws {@link GHRequestException} when the page could not be read.
+     */
+    public URL listIssuesPage(URL url, boolean cached, ToIntFunction<String> labelIds, Consumer<List<GHIssueRecord>> items) {
+        Page<GHIssueRecord> page = join(listPageAsync(url, body -> GHUtils.extractIssues(body, labelIds), cached, CALLER));
+        items.accept(page.items);
+        return nextPage(url, page);
+    }
+
+    private <T> void listAllPages(URL firstPage, Function<InputStream, List<T>> parser, Consumer<List<T>> pages) {
+        URL url = firstPage;
+        while (url != null) {
+            Page<T> page = join(listPageAsync(url, parser, true, CALLER));
+            pages.accept(page.items);
+            url = nextPage(url, page);
+        }
+    }
+
+    private static URL nextPage(URL url, Page<?> page) {
+        try {
+            return page.next == null ? null : new URL(page.next);
+        } catch (MalformedURLException e) {
+            throw new GHRequestException(GHEndpointFamily.of(url), "Malformed URL of next page " + page.next, e);
+        }
+    }
+
+    private <T> CompletableFuture<Page<T>> listPageAsync(URL url, Function<InputStream, List<T>> parser, boolean cached,
+                                                        Executor executor) {
+        GHEndpointFamily family = GHEndpointFamily.of(url);
+        return withToken(family, executor, token ->
+                send(family, () -> request(token, url, cached), HttpResponse.BodyHandlers.ofInputStream())
+                        .handle((response, failure) -> {
+                            check(url, family, token, response, failure);
+                            if (response.statusCode() == 304) {
+                                closeQuietly(response);
+                                return notModified(family, url);
+                            }
+                            try (InputStream body = requestStats.counting(family, response.body())) {
+                                Page<T> page = new Page<>(parser.apply(body),
+                                        GHUtils.nextPageFromLinkHeader(response.headers().firstValue("Link").orElse(null)));
+                                if (cached) {
+                                    // ETag covers the page content, Link header changes only when the number of pages changes
+                                    cacheResponse(url, response.headers(), page, linkHeaderCacheMaxAge.toMillis());
+                                }
+                                return page;
+                            } catch (IOException | RuntimeException e) {
+                                throw new GHRequestException(family, "Unexpected data from URL " + url, e);
+                            }
+                        }));
+    }
+
+    public JsonObject getJsonObject(String address) {
+        return join(getJsonObjectAsync(address, CALLER));
+    }
+
+    public CompletableFuture<JsonObject> getJsonObjectAsync(String address) {
+        return getJsonObjectAsync(address, acquireExecutor);
+    }
+
+    private CompletableFuture<JsonObject> getJsonObjectAsync(String address, Executor executor) {
+        URL url;
+        try {
+            url = new URL(address);
+        } catch (MalformedURLException e) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Malformed URL " + address, e));
+        }
+        GHEndpointFamily family = GHEndpointFamily.of(url);
+        return withToken(family, executor, token ->
+                send(family, () -> request(token, url, true), HttpResponse.BodyHandlers.ofInputStream())
+                        .handle((response, failure) -> {
+                            check(url, family, token, response, failure);
+                            if (response.statusCode() == 304) {
+                                closeQuietly(response);
+                                return notModified(family, url);
+                            }
+                            try (JsonReader jsonReader = readerFactory.createReader(requestStats.counting(family, response.body()))) {
+                                JsonObject rootJSON = jsonReader.readObject();
+                                cacheResponse(url, response.headers(), rootJSON, Long.MAX_VALUE);
+                                return rootJSON;
+                            } catch (RuntimeException e) {
+                                throw new GHRequestException(family, "Unexpected data from URL " + address, e);
+                            }
+                        }));
+    }
+
+    /**
+     * Send GraphQL query, returns "data" part of the response or null when the response has no data
+     */
+    public JsonObject postGraphQL(URL url, String query) {
+        return join(postGraphQLAsync(url, query, CALLER));
+    }
+
+    public CompletableFuture<JsonObject> postGraphQLAsync(URL url, String query) {
+        return postGraphQLAsync(url, query, acquireExecutor);
+    }
+
+    private CompletableFuture<JsonObject> postGraphQLAsync(URL url, String query, Executor executor) {
+        GHEndpointFamily family = GHEndpointFamily.GRAPHQL;
+        return withToken(family, executor, token ->
+                send(family, () -> HttpRequest.newBuilder(toURI(url))
+                                .timeout(readTimeout)
+                                .header("Authorization", "bearer " + token.getValue())
+                                .header("User-Agent", "github-metrics")
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString(Json.createObjectBuilder().add("query", query).build().toString()))
+                                .build(),
+                        HttpResponse.BodyHandlers.ofInputStream())
+                        .handle((response, failure) -> {
+                            check(url, family, token, response, failure);
+                            try (JsonReader jsonReader = readerFactory.createReader(requestStats.counting(family, response.body()))) {
+                                JsonObject rootJSON = jsonReader.readObject();
+                                if (rootJSON.containsKey("errors")) {
+                                    log.warn("GraphQL query finished with errors " + rootJSON.get("errors"));
+                                }
+                                JsonValue data = rootJSON.get("data");
+                                return data instanceof JsonObject ? (JsonObject) data : null;
+                            } catch (RuntimeException e) {
+                                throw new GHRequestException(family, "Unexpected GraphQL data from URL " + url, e);
+                            }
+                        }));
+    }
+
+    /**
+     * Check the token with request to API root, the request is not cached and does not go through the pool
+     *
+     * Returns false only when GitHub rejected the token (401, 403 which is not a rate limit) or the credentials
+     * of GitHub App (4xx on renewal of installation token). Unreachable API and server errors throw
+     * {@link IllegalStateException}, so the validation can be retried without evicting the token. Token with
+     * exhausted budget is valid, it waits for the reset of its rate limits which are updated by the response.
+     */
+    public boolean isTokenValid(GHToken token) {
+        String value;
+        try {
+            value = token.getValue();
+        } catch (GHRequestException e) {
+            if (e.getStatusCode() >= 400 && e.getStatusCode() < 500) {
+                log.error("Unable to renew GitHub token " + token.getId() + ": " + e.getMessage());
+                return false;
+            }
+            throw new IllegalStateException("Unable to renew GitHub token " + token.getId(), e);
+        }
+        URL url;
+        HttpResponse<Void> response;
+        try {
+            url = new URL(apiUrl + "/");
+            HttpRequest request = HttpRequest.newBuilder(toURI(url))
+                    .timeout(readTimeout)
+                    .header("Authorization", "token " + value)
+                    .header("User-Agent", "github-metrics")
+                    .GET()
+                    .build();
+            response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to reach " + apiUrl + " to validate GitHub token " + token.getId(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted validation of GitHub token " + token.getId(), e);
+        }
+        if (response.statusCode() >= 500) {
+            throw new IllegalStateException("Unable to validate GitHub token " + token.getId() + ", status code " + response.statusCode());
+        }
+        token.getRateLimits().update(GHEndpointFamily.CORE, name -> response.headers().firstValue(name).orElse(null));
+        if (response.statusCode() == 401) {
+            return false;
+        }
+        if (response.statusCode() == 403) {
+            // exhausted budget or secondary rate limit says nothing about the token itself
+            return "0".equals(response.headers().firstValue("X-RateLimit-Remaining").orElse(null))
+                    || response.headers().firstValue("Retry-After").isPresent();
+        }
+        return true;
+    }
+
+    /**
+     * Pass the circuit breaker of the family and select token for the request
+     */
+    /**
+     * Acquire permit of the circuit breaker and token on the executor, then make the call with the token
+     *
+     * Acquiring waits for reset of exhausted rate limit window, so async variants acquire on {@link #acquireExecutor}
+     * instead of blocking their caller. Fail fast mode of the calling thread is kept.
+     */
+    private <T> CompletableFuture<T> withToken(GHEndpointFamily family, Executor executor,
+                                               Function<GHToken, CompletableFuture<T>> call) {
+        boolean failFast = GHRateLimits.isFailFast();
+        return CompletableFuture.supplyAsync(() -> failFast ? GHRateLimits.failFast(() -> acquire(family)) : acquire(family),
+                executor).thenCompose(call);
+    }
+
+    private GHToken acquire(GHEndpointFamily family) {
+        if (!circuitBreakerEnabled) {
+            return tokenPool.acquire(family);
+        }
+        GHCircuitBreaker circuitBreaker = circuitBreakers.get(family);
+        circuitBreaker.acquire();
+        try {
+            return tokenPool.acquire(family);
+        } catch (RuntimeException e) {
+            circuitBreaker.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Build and send the request, the circuit breaker is released when the request could not be sent at all
+     *
+     * Building can fail before anything reaches GitHub (e.g. renewal of installation token), half-open circuit
+     * would otherwise wait for outcome of its trial request forever.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> send(GHEndpointFamily family, Supplier<HttpRequest> request,
+                                                      HttpResponse.BodyHandler<T> bodyHandler) {
+        HttpRequest httpRequest;
+        try {
+            httpRequest = request.get();
+        } catch (RuntimeException e) {
+            release(family);
+            throw e;
+        }
+        long start = requestStats.started(family);
+        try {
+            return httpClient.sendAsync(httpRequest, bodyHandler)
+                    .whenComplete((response, failure) ->
+                            requestStats.completed(family, start, response != null ? response.statusCode() : -1));
+        } catch (RuntimeException e) {
+            requestStats.completed(family, start, -1);
+            release(family);
+            throw e;
+        }
+    }
+
+    private void release(GHEndpointFamily family) {
+        if (circuitBreakerEnabled) {
+            circuitBreakers.get(family).release();
+        }
+    }
+
+    private HttpRequest request(GHToken token, URL url, boolean conditional) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(toURI(url))
+                .timeout(readTimeout)
+                .header("Authorization", "token " + token.getValue())
+                .header("User-Agent", "github-metrics")
+                .GET();
+        if (conditional) {
+            responseCache.addConditionalHeaders(url.toExternalForm(), builder::header);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Update rate limits of the token and the circuit breaker from the response, 304 Not Modified is a success
+     *
+     * Throws {@link GHRequestException} when the request failed, the response body is closed.
+     * Token rejected with 401 Unauthorized is evicted from the pool.
+     */
+    private void check(URL url, GHEndpointFamily family, GHToken token, HttpResponse<?> response, Throwable failure) {
+        if (failure != null) {
+            if (circuitBreakerEnabled) {
+                circuitBreakers.get(family).onFailure();
+            }
+            throw new GHRequestException(family, "Unable to get expected data from URL " + url, failure);
+        }
+        token.getRateLimits().update(family, name -> response.headers().firstValue(name).orElse(null));
+        int status = response.statusCode();
+        if (status == 200 || status == 304) {
+            if (circuitBreakerEnabled) {
+                circuitBreakers.get(family).onSuccess();
+            }
+            return;
+        }
+        closeQuietly(response);
+        if (status == 401) {
+            tokenPool.evict(token);
+        }
+        if (circuitBreakerEnabled) {
+            record(family, response);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Response headers " + response.headers().map());
+        }
+        throw new GHRequestException(family, status, "Unable to get expected data from URL " + url + ", status code " + status);
+    }
+
+    /**
+     * Feed failed response to the circuit breaker, rate limited family waits for Retry-After at least
+     *
+     * Exhausted budget of the token (X-RateLimit-Remaining: 0) does not open the circuit, the token waits
+     * for X-RateLimit-Reset in its {@link GHRateLimits} and other tokens of the pool can still be used.
+     */
+    private void record(GHEndpointFamily family, HttpResponse<?> response) {
+        GHCircuitBreaker circuitBreaker = circuitBreakers.get(family);
+        int status = response.statusCode();
+        String retryAfter = response.headers().firstValue("Retry-After").orElse(null);
+        if (retryAfter != null && (status == 403 || status == 429 || status == 503)) {
+            circuitBreaker.onRateLimited(GHUtils.retryAfterMillis(retryAfter, System.currentTimeMillis()));
+        } else if ((status == 403 || status == 429)
+                && "0".equals(response.headers().firstValue("X-RateLimit-Remaining").orElse(null))) {
+            circuitBreaker.onSuccess();
+        } else if (status == 429) {
+            circuitBreaker.onRateLimited(0);
+        } else if (status == 403 || status >= 500) {
+            // 403 without rate limit headers is either secondary rate limit or missing permission
+            circuitBreaker.onFailure();
+        } else {
+            circuitBreaker.onSuccess();
+        }
+    }
+
+    private <T> T notModified(GHEndpointFamily family, URL url) {
+        T value = responseCache.notModified(url.toExternalForm());
+        if (value == null) {
+            throw new GHRequestException(family, 304, "Response not modified for URL " + url + ", but no value cached");
+        }
+        log.debug("Response not modified for URL " + url);
+        return value;
+    }
+
+    private void cacheResponse(URL url, HttpHeaders headers, Object value, long maxAgeMillis) {
+        responseCache.put(url.toExternalForm(), headers.firstValue("ETag").orElse(null),
+                headers.firstValue("Last-Modified").orElse(null), value, maxAgeMillis);
+    }
+
+    private static void closeQuietly(HttpResponse<?> response) {
+        if (response != null && response.body() instanceof Closeable) {
+            try {
+                ((Closeable) response.body()).close();
+            } catch (Exception e) {
+                log.debug("Unable to close response body", e);
+            }
+        }
+    }
+
+    /**
+     * Search queries contain characters like '>' or spaces which are accepted by URL, but need quoting in URI
+     */
+    private static URI toURI(URL url) {
+        try {
+            return url.toURI();
+        } catch (URISyntaxException e) {
+            try {
+                return new URI(url.getProtocol(), url.getUserInfo(), url.getHost(), url.getPort(), url.getPath(),
+                        url.getQuery(), url.getRef());
+            } catch (URISyntaxException ex) {
+                throw new IllegalArgumentException("Invalid URL " + url, ex);
+            }
+        }
+    }
+
+    private static class Page<T> {
+        final List<T> items;
+        final String next;
+
+        Page(List<T> items, String next) {
+            this.items = items;
+            this.next = next;
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
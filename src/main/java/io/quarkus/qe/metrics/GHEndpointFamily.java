@@ -0,0 +1,19 @@
+package io.quarkus.qe.metrics;
+
+import java.net.URL;
+
+/**
+ * Families of GitHub API endpoints sharing the same rate limit bucket
+ */
+public enum GHEndpointFamily {
+    CORE,
+    SEARCH,
+    GRAPHQL;
+
+    public static GHEndpointFamily of(URL url) {
+        if (url.getPath().contains("/search/")) {
+            return SEARCH;
+        }
+        return url.getPath().endsWith("/graphql") ? GRAPHQL : CORE;
+    }
+}
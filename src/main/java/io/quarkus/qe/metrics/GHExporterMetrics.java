@@ -0,0 +1,182 @@
+package io.quarkus.qe.metrics;
+
+import io.smallrye.metrics.ExtendedMetadataBuilder;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.Tag;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Metrics about the exporter itself and its interaction with GitHub
+ */
+@ApplicationScoped
+public class GHExporterMetrics {
+
+    @Inject
+    GHClient ghClient;
+
+    @Inject
+    GHRepositoryBaseMetrics ghRepositoryBaseMetrics;
+
+    @Inject
+    GHPushExporter pushExporter;
+
+    @Inject
+    GHMetricsCollector collector;
+
+    @Inject
+    GHQueryPlanner planner;
+
+    @Inject
+    GHIssueIndex issueIndex;
+
+    @Inject
+    GitHubMetrics gitHubMetrics;
+
+    public void ghExporterMetrics(MetricRegistry registry) {
+        registry.register(
+                new ExtendedMetadataBuilder()
+                        .withName("gh_exporter_cache_hits")
+                        .withType(MetricType.GAUGE)
+                        .withDescription("Number of GitHub responses answered with 304 Not Modified and served from cache")
+                        .skipsScopeInOpenMetricsExportCompletely(true)
+                        .prependsScopeToOpenMetricsName(false)
+                        .build(),
+                (Gauge<Number>) () -> ghClient.getResponseCache().getHits()
+        );
+
+        registry.register(
+                new ExtendedMetadataBuilder()
+                        .withName("gh_exporter_cache_misses")
+                        .withType(MetricType.GAUGE)
+                        .withDescription("Number of GitHub responses with full content")
+                        .skipsScopeInOpenMetricsExportCompletely(true)
+                        .prependsScopeToOpenMetricsName(false)
+                        .build(),
+                (Gauge<Number>) () -> ghClient.getResponseCache().getMisses()
+        );
+
+        registry.register(
+                new ExtendedMetadataBuilder()
+                        .withName("gh_exporter_cache_size")
+                        .withType(MetricType.GAUGE)
+                        .withDescription("Number of GitHub responses held in cache")
+                        .skipsScopeInOpenMetricsExportCompletely(true)
+                        .prependsScopeToOpenMetricsName(false)
+                        .build(),
+                (Gauge<Number>) () -> ghClient.getResponseCache().size()
+        );
+
+        GHLoadingCache<?> repositoryCache = ghRepositoryBaseMetrics.getRepositoryCache();
+        registerGauge(registry, "gh_exporter_repository_cache_hits",
+                "Number of repository details served from cache", repositoryCache::getHits);
+        registerGauge(registry, "gh_exporter_repository_cache_stale_hits",
+                "Number of expired repository details served while reload was in flight", repositoryCache::getStaleHits);
+        registerGauge(registry, "gh_exporter_repository_cache_misses",
+                "Number of repository details requests which waited for load", repositoryCache::getMisses);
+        registerGauge(registry, "gh_exporter_repository_cache_load_failures",
+                "Number of failed loads of repository details", repositoryCache::getLoadFailures);
+        registerGauge(registry, "gh_exporter_repository_cache_load_time_ms",
+                "Average load time of repository details in milliseconds", repositoryCache::getAverageLoadTimeMillis);
+        registerGauge(registry, "gh_exporter_repository_cache_size",
+                "Number of repositories held in cache", repositoryCache::size);
+
+        GHRequestStats requestStats = ghClient.getRequestStats();
+        for (GHEndpointFamily family : GHEndpointFamily.values()) {
+            Tag familyTag = new Tag("family", family.name().toLowerCase());
+            for (String status : GHRequestStats.STATUSES) {
+                registerGauge(registry, "gh_exporter_requests", "Number of GitHub requests by endpoint family and status code",
+                        () -> requestStats.getStatusCount(family, status), familyTag, new Tag("status", status));
+            }
+            for (int i = 0; i < GHRequestStats.LATENCY_BUCKETS_SECONDS.length; i++) {
+                int bucket = i;
+                registerGauge(registry, "gh_exporter_request_duration_seconds_bucket",
+                        "Number of GitHub requests answered within le seconds",
+                        () -> requestStats.getBucketCount(family, bucket),
+                        familyTag, new Tag("le", String.valueOf(GHRequestStats.LATENCY_BUCKETS_SECONDS[i])));
+            }
+            registerGauge(registry, "gh_exporter_request_duration_seconds_bucket",
+                    "Number of GitHub requests answered within le seconds",
+                    () -> requestStats.getCount(family), familyTag, new Tag("le", "+Inf"));
+            registerGauge(registry, "gh_exporter_request_duration_seconds_count",
+                    "Number of GitHub requests", () -> requestStats.getCount(family), familyTag);
+            registerGauge(registry, "gh_exporter_request_duration_seconds_sum",
+                    "Total time spent waiting for GitHub responses in seconds", () -> requestStats.getSumSeconds(family), familyTag);
+            registerGauge(registry, "gh_exporter_requests_in_flight",
+                    "Number of GitHub requests waiting for response", () -> requestStats.getInFlight(family), familyTag);
+            registerGauge(registry, "gh_exporter_response_bytes",
+                    "Number of bytes read from GitHub responses", () -> requestStats.getBytesRead(family), familyTag);
+            if (ghClient.isCircuitBreakerEnabled()) {
+                GHCircuitBreaker circuitBreaker = ghClient.getCircuitBreaker(family);
+                registerGauge(registry, "gh_exporter_circuit_state",
+                        "State of the circuit breaker, 0 closed, 1 open, 2 half-open", () -> circuitBreaker.getState().ordinal(),
+                        familyTag);
+                registerGauge(registry, "gh_exporter_circuit_opened",
+                        "Number of times the circuit breaker opened", circuitBreaker::getOpened, familyTag);
+                registerGauge(registry, "gh_exporter_circuit_rejected_requests",
+                        "Number of requests not sent because the circuit breaker was open", circuitBreaker::getRejected,
+                        familyTag);
+            }
+        }
+
+        registerGauge(registry, "gh_exporter_startup_seconds",
+                "Seconds from application start until metrics were registered", () -> gitHubMetrics.getStartupMillis() / 1000.0);
+        registerGauge(registry, "gh_exporter_ready",
+                "1 when metrics are registered and their values are available", () -> gitHubMetrics.isReady() ? 1 : 0);
+        registerGauge(registry, "gh_exporter_refresh_duration_seconds",
+                "Duration of the last refresh of all metrics in seconds", collector::getLastRefreshDurationSeconds);
+        registerGauge(registry, "gh_exporter_refreshes",
+                "Number of finished refreshes", collector::getRefreshCount);
+        registerGauge(registry, "gh_exporter_refresh_skipped_fetches",
+                "Number of fetches not due in the last refresh", collector::getLastSkippedFetches);
+        for (String metricName : collector.getMetricNames()) {
+            registerGauge(registry, "gh_exporter_metric_staleness_seconds",
+                    "Seconds since the least recently fetched series of the metric was refreshed",
+                    () -> collector.getStalenessSeconds(metricName), new Tag("metric", metricName));
+        }
+
+        if (planner.isEnabled()) {
+            registerGauge(registry, "gh_exporter_planned_searches",
+                    "Number of distinct searches issued in every refresh", planner::getSearchCount);
+            registerGauge(registry, "gh_exporter_planned_saved_calls",
+                    "Number of API calls saved in every refresh by the query planner", planner::getSharedSavedCalls,
+                    new Tag("kind", "shared"));
+            registerGauge(registry, "gh_exporter_planned_saved_calls",
+                    "Number of API calls saved in every refresh by the query planner", planner::getDerivedSavedCalls,
+                    new Tag("kind", "derived"));
+        }
+
+        if (issueIndex.isEnabled()) {
+            registerGauge(registry, "gh_exporter_index_records",
+                    "Number of issues and PRs held by the local issue index", issueIndex::getRecordCount);
+        }
+
+        if (pushExporter.isEnabled()) {
+            registerGauge(registry, "gh_exporter_push_sent_series",
+                    "Number of series accepted by push receiver", pushExporter::getSentSeries);
+            registerGauge(registry, "gh_exporter_push_failed_requests",
+                    "Number of failed push requests", pushExporter::getFailedRequests);
+            registerGauge(registry, "gh_exporter_push_dropped_series",
+                    "Number of series dropped because of full buffer or rejection by receiver", pushExporter::getDroppedSeries);
+            registerGauge(registry, "gh_exporter_push_buffered_series",
+                    "Number of changed series waiting for push", pushExporter::getBufferedSeries);
+        }
+    }
+
+    private void registerGauge(MetricRegistry registry, String name, String description, Gauge<Number> gauge, Tag... tags) {
+        registry.register(
+                new ExtendedMetadataBuilder()
+                        .withName(name)
+                        .withType(MetricType.GAUGE)
+                        .withDescription(description)
+                        .skipsScopeInOpenMetricsExportCompletely(true)
+                        .prependsScopeToOpenMetricsName(false)
+                        .build(),
+                gauge,
+                tags
+        );
+    }
+}
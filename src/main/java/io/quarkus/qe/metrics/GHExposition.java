@@ -0,0 +1,221 @@
+package io.quarkus.qe.metrics;
+
+import io.smallrye.metrics.MetricRegistries;
+import io.smallrye.metrics.exporters.OpenMetricsExporter;
+import io.smallrye.metrics.exporters.OpenMetricsUnit;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricID;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.jboss.logging.Logger;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exposition of application metrics rendered once per change of collector values instead of once per scrape
+ *
+ * The text is rendered by the same exporter as /metrics uses, so the output is identical to application scope
+ * of /metrics. Plain and gzip compressed bytes are kept together with their ETag, a scrape only writes the bytes.
+ * Gauges not backed by the collector snapshot (gh_exporter_*, rate limit budgets) change between refreshes,
+ * their lines are moved to the end of the text and their values are read again on every scrape.
+ */
+@ApplicationScoped
+public class GHExposition {
+
+    private static final Logger log = Logger.getLogger(GHExposition.class);
+
+    @ConfigProperty(name = "gh.exposition.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @Inject
+    GHMetricsCollector collector;
+
+    private volatile Rendered rendered;
+
+    /**
+     * Render after every refresh, so scrapes do not wait for rendering
+     */
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        collector.addRefreshListener(this::render);
+        log.info("Pre-rendered metrics exposition enabled");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Rendered exposition of current values, values changed by webhook events since last refresh are rendered on demand
+     */
+    public Rendered get() {
+        Rendered current = rendered;
+        Map<MetricID, Number> snapshot = collector.getSnapshot();
+        if (current != null && current.snapshot == snapshot) {
+            return current;
+        }
+        return render(snapshot);
+    }
+
+    synchronized Rendered render(Map<MetricID, Number> snapshot) {
+        Rendered current = rendered;
+        if (current != null && current.snapshot == snapshot) {
+            return current;
+        }
+        OpenMetricsExporter exporter = new OpenMetricsExporter();
+        MetricRegistry registry = MetricRegistries.get(MetricRegistry.Type.APPLICATION);
+        Set<String> snapshotNames = collector.getMetricNames();
+        // sorted by MetricID, the same order as the exporter writes series of one name
+        Map<String, List<Map.Entry<MetricID, Gauge<?>>>> byName = new HashMap<>();
+        registry.getGauges((metricID, metric) -> !snapshotNames.contains(metricID.getName()))
+                .forEach((metricID, gauge) -> byName.computeIfAbsent(metricID.getName(), name -> new ArrayList<>())
+                        .add(Map.entry(metricID, gauge)));
+        Map<String, Iterator<Map.Entry<MetricID, Gauge<?>>>> liveGauges = new HashMap<>();
+        byName.forEach((name, gauges) -> liveGauges.put(name, gauges.iterator()));
+
+        String exported = exporter.exportOneScope(MetricRegistry.Type.APPLICATION).toString();
+        StringBuilder cached = new StringBuilder(exported.length());
+        List<LiveLine> liveLines = new ArrayList<>();
+        StringBuilder liveHeader = new StringBuilder();
+        for (String line : exported.split("\n")) {
+            Iterator<Map.Entry<MetricID, Gauge<?>>> gauges = liveGauges.get(metricName(line));
+            if (gauges == null) {
+                cached.append(line).append('\n');
+            } else if (line.startsWith("#")) {
+                liveHeader.append(line).append('\n');
+            } else if (gauges.hasNext()) {
+                Map.Entry<MetricID, Gauge<?>> gauge = gauges.next();
+                liveLines.add(new LiveLine(liveHeader + line.substring(0, line.lastIndexOf(' ') + 1),
+                        registry.getMetadata(gauge.getKey().getName()), gauge.getValue()));
+                liveHeader.setLength(0);
+            } else {
+                // gauge registered while rendering, its value stays until next render
+                cached.append(line).append('\n');
+            }
+        }
+        byte[] text = cached.toString().getBytes(StandardCharsets.UTF_8);
+        String etag = etag(text);
+        if (current != null && current.etag.equals(etag)) {
+            // values have changed back and forth or did not change at all, keep compressed bytes
+            current = new Rendered(snapshot, current.contentType, current.text, current.gzip, etag, liveLines);
+        } else {
+            current = new Rendered(snapshot, exporter.getContentType(), text, gzip(text), etag, liveLines);
+        }
+        rendered = current;
+        return current;
+    }
+
+    /**
+     * Name of the metric the exposition line belongs to, including # HELP and # TYPE lines
+     */
+    private static String metricName(String line) {
+        int start = line.startsWith("# HELP ") || line.startsWith("# TYPE ") ? 7 : 0;
+        int end = start;
+        while (end < line.length() && line.charAt(end) != '{' && line.charAt(end) != ' ') {
+            end++;
+        }
+        return line.substring(start, end);
+    }
+
+    private static String etag(byte[] text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] text) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(text.length / 8);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(text);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to compress metrics", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Series backed by the snapshot with their ETag, lines of live gauges are written after them on every scrape
+     *
+     * The ETag covers only the buffered series, gh_exporter_metric_staleness_seconds and similar gauges change
+     * with every scrape and would make 304 Not Modified impossible.
+     */
+    public static class Rendered {
+        // snapshot of collector values the text was rendered from
+        final Map<MetricID, Number> snapshot;
+        final String contentType;
+        final byte[] text;
+        final byte[] gzip;
+        final String etag;
+        // lines of gauges not backed by the snapshot
+        final List<LiveLine> liveLines;
+
+        Rendered(Map<MetricID, Number> snapshot, String contentType, byte[] text, byte[] gzip, String etag,
+                 List<LiveLine> liveLines) {
+            this.snapshot = snapshot;
+            this.contentType = contentType;
+            this.text = text;
+            this.gzip = gzip;
+            this.etag = etag;
+            this.liveLines = liveLines;
+        }
+
+        /**
+         * Write buffered bytes and current values of live gauges, gzip members of both parts are concatenated
+         */
+        public void write(OutputStream output, boolean compressed) throws IOException {
+            output.write(compressed ? gzip : text);
+            if (liveLines.isEmpty()) {
+                return;
+            }
+            StringBuilder live = new StringBuilder(liveLines.size() * 64);
+            for (LiveLine line : liveLines) {
+                line.append(live);
+            }
+            byte[] liveText = live.toString().getBytes(StandardCharsets.UTF_8);
+            output.write(compressed ? GHExposition.gzip(liveText) : liveText);
+        }
+    }
+
+    /**
+     * Line of a live gauge, the prefix holds its # HELP / # TYPE lines and the name with tags as written by the exporter
+     */
+    static class LiveLine {
+        private final String prefix;
+        private final String unit;
+        private final Gauge<?> gauge;
+
+        LiveLine(String prefix, Metadata metadata, Gauge<?> gauge) {
+            this.prefix = prefix;
+            this.unit = metadata == null ? "none" : metadata.unit().orElse("none");
+            this.gauge = gauge;
+        }
+
+        void append(StringBuilder text) {
+            Number value = (Number) gauge.getValue();
+            text.append(prefix)
+                    .append(OpenMetricsUnit.scaleToBase(unit, value == null ? Double.NaN : value.doubleValue()))
+                    .append('\n');
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package io.quarkus.qe.metrics;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+
+/**
+ * Pre-rendered application metrics, enabled by gh.exposition.enabled
+ *
+ * Scrapers sending If-None-Match with the ETag of previous scrape get 304 Not Modified until values change.
+ */
+@Path("/gh-metrics")
+public class GHExpositionResource {
+
+    @Inject
+    GHExposition exposition;
+
+    @GET
+    public Response metrics(@HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding,
+                            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
+        if (!exposition.isEnabled()) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        GHExposition.Rendered rendered = exposition.get();
+        if (ifNoneMatch != null && ifNoneMatch.contains(rendered.etag)) {
+            return Response.notModified().header(HttpHeaders.ETAG, rendered.etag).build();
+        }
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        // buffered series and live gauges are written as two chunks, nothing is copied per scrape
+        StreamingOutput body = output -> rendered.write(output, gzip);
+        Response.ResponseBuilder response = Response.ok(body, rendered.contentType)
+                .header(HttpHeaders.ETAG, rendered.etag)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.build();
+    }
+}
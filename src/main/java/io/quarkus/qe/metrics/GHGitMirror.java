@@ -0,0 +1,319 @@
+package io.quarkus.qe.metrics;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricID;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Tag;
+import org.jboss.logging.Logger;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Bare git mirrors of repositories, commits, contributors and tags are counted locally instead of per_page=1 requests
+ *
+ * Mirrors are cloned with commits only (--filter=tree:0) into gh.git.mirror.dir and then fetched once per refresh,
+ * which transfers only new objects. Commits and author emails of the default branch are counted incrementally
+ * from the previously counted head, a full recount happens only when the branch was rewritten.
+ * Initial clones run one at a time on their own thread, so they do not hold permits of the collector.
+ * Contributors are distinct author emails, so the count can differ from GitHub which merges emails of one account.
+ */
+@ApplicationScoped
+public class GHGitMirror {
+
+    private static final Logger log = Logger.getLogger(GHGitMirror.class);
+
+    @ConfigProperty(name = "gh.git.mirror.enabled", defaultValue = "false")
+    boolean enabled;
+    @ConfigProperty(name = "gh.git.mirror.dir", defaultValue = "${java.io.tmpdir}/gh-exporter-mirrors")
+    String mirrorDir;
+    // repositories are cloned from <gh.git.url>/<owner>/<name>.git
+    @ConfigProperty(name = "gh.git.url", defaultValue = "https://github.com")
+    String gitUrl;
+    @ConfigProperty(name = "gh.git.timeout", defaultValue = "10m")
+    Duration timeout;
+
+    @Inject
+    GHMetricsCollector collector;
+
+    private final Map<String, Mirror> mirrors = new ConcurrentHashMap<>();
+    // created with the first mirror, replaced by tests
+    Executor cloneExecutor;
+
+    @PreDestroy
+    synchronized void shutdown() {
+        if (cloneExecutor instanceof ExecutorService) {
+            ((ExecutorService) cloneExecutor).shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private synchronized Executor cloneExecutor() {
+        if (cloneExecutor == null) {
+            cloneExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "gh-git-clone");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return cloneExecutor;
+    }
+
+    /**
+     * Register gauge counted from the mirror of the repository, the mirror is fetched before counting in every refresh
+     */
+    public MetricID register(MetricRegistry registry, Metadata metadata, String repositoryName,
+                             ToLongFunction<Mirror> count, Tag... tags) {
+        MetricID metricID = collector.registerGauge(registry, metadata, tags);
+        mirrors.computeIfAbsent(repositoryName, name -> {
+            Mirror mirror = new Mirror(name, Paths.get(mirrorDir).resolve(name + ".git"));
+            // git transport does not consume API budget, CORE family only caps concurrency
+            collector.registerBatch(batchName(name), GHEndpointFamily.CORE, mirror.counts.keySet(), () -> {
+                mirror.sync();
+                Map<MetricID, Number> values = new HashMap<>();
+                mirror.counts.forEach((countedMetricID, counter) -> values.put(countedMetricID, counter.applyAsLong(mirror)));
+                return values;
+            });
+            return mirror;
+        }).counts.put(metricID, count);
+        return metricID;
+    }
+
+    /**
+     * Forget counts of series matching the filter, mirrors without counts are dropped but stay on disk for next start
+     */
+    public void unregister(Predicate<MetricID> filter) {
+        List<String> removed = new ArrayList<>();
+        mirrors.forEach((repositoryName, mirror) -> {
+            mirror.counts.keySet().removeIf(filter);
+            if (mirror.counts.isEmpty()) {
+                removed.add(repositoryName);
+            }
+        });
+        for (String repositoryName : removed) {
+            mirrors.remove(repositoryName);
+            collector.unregisterBatch(batchName(repositoryName));
+        }
+    }
+
+    private static String batchName(String repositoryName) {
+        return "git:" + repositoryName;
+    }
+
+    /**
+     * Mirror of one repository with counts of its default branch
+     */
+    class Mirror {
+
+        private final String repositoryName;
+        private final Path directory;
+        final Map<MetricID, ToLongFunction<Mirror>> counts = new ConcurrentHashMap<>();
+
+        // running initial clone, null when there is none
+        private CompletableFuture<Void> cloning;
+        // head of the default branch the counts below belong to, null before first count
+        private String countedHead;
+        private long commits;
+        private final Set<String> authors = new HashSet<>();
+        private long tags;
+
+        Mirror(String repositoryName, Path directory) {
+            this.repositoryName = repositoryName;
+            this.directory = directory;
+        }
+
+        /**
+         * Fetch the mirror and update the counts, throws when git fails so the last values are kept
+         *
+         * Missing mirror is cloned in the background and the call throws until the clone is done.
+         */
+        synchronized void sync() {
+            if (Files.isDirectory(directory.resolve("objects"))) {
+                git(directory, null, "fetch", "--quiet", "--prune", "origin",
+                        "+refs/heads/*:refs/heads/*", "+refs/tags/*:refs/tags/*");
+            } else {
+                awaitClone();
+            }
+
+            List<String> head = new ArrayList<>();
+            git(directory, head::add, "rev-parse", "HEAD");
+            String newHead = head.get(0);
+            if (!newHead.equals(countedHead)) {
+                // counts change only once every git command succeeded, a failure in between must not count twice
+                boolean incremental = countedHead != null && isAncestor(countedHead, newHead);
+                String range = incremental ? countedHead + ".." + newHead : newHead;
+                long newCommits = count(range);
+                Set<String> newAuthors = new HashSet<>();
+                git(directory, email -> newAuthors.add(email.toLowerCase(Locale.ROOT)), "log", "--format=%ae", range);
+                if (incremental) {
+                    commits += newCommits;
+                } else {
+                    // first count or rewritten history
+                    commits = newCommits;
+                    authors.clear();
+                }
+                authors.addAll(newAuthors);
+                countedHead = newHead;
+            }
+
+            long[] tagCount = new long[1];
+            git(directory, tag -> tagCount[0]++, "for-each-ref", "--format=%(refname)", "refs/tags");
+            tags = tagCount[0];
+            log.debug("Mirror of " + repositoryName + " synced, " + commits + " commits, " + authors.size() + " authors, "
+                    + tags + " tags");
+        }
+
+        synchronized long getCommits() {
+            return commits;
+        }
+
+        synchronized long getContributors() {
+            return authors.size();
+        }
+
+        synchronized long getTags() {
+            return tags;
+        }
+
+        /**
+         * Start the clone when there is none running, throws until it is done
+         */
+        private void awaitClone() {
+            if (cloning == null) {
+                log.info("Cloning mirror of " + repositoryName);
+                cloning = CompletableFuture.runAsync(this::cloneMirror, cloneExecutor());
+            }
+            if (!cloning.isDone()) {
+                throw new IllegalStateException("Mirror of " + repositoryName + " is being cloned");
+            }
+            CompletableFuture<Void> clone = cloning;
+            // failed clone is started again with the next sync
+            cloning = null;
+            try {
+                clone.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        /**
+         * Clone into a temporary directory first, so an interrupted clone is not taken for the mirror
+         */
+        private void cloneMirror() {
+            Path clone = directory.resolveSibling(directory.getFileName() + ".clone");
+            try {
+                Files.createDirectories(directory.getParent());
+                delete(clone);
+                git(directory.getParent(), null, "clone", "--quiet", "--bare", "--filter=tree:0",
+                        (gitUrl.endsWith("/") ? gitUrl : gitUrl + "/") + repositoryName + ".git", clone.toString());
+                Files.move(clone, directory, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to create mirror directory " + directory, e);
+            }
+        }
+
+        private long count(String range) {
+            List<String> output = new ArrayList<>();
+            git(directory, output::add, "rev-list", "--count", range);
+            return Long.parseLong(output.get(0).trim());
+        }
+
+        private boolean isAncestor(String ancestor, String descendant) {
+            try {
+                git(directory, null, "merge-base", "--is-ancestor", ancestor, descendant);
+                return true;
+            } catch (IllegalStateException e) {
+                return false;
+            }
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Run git command in the directory, every line of the output is passed to the consumer
+     */
+    void git(Path workingDirectory, Consumer<String> output, String... arguments) {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(List.of(arguments));
+        ProcessBuilder builder = new ProcessBuilder(command).directory(workingDirectory.toFile());
+        if (output == null) {
+            // output of commands which do not produce data is kept for the error message
+            builder.redirectErrorStream(true);
+        } else {
+            builder.redirectError(ProcessBuilder.Redirect.DISCARD);
+        }
+        try {
+            Process process = builder.start();
+            // stalled fetch does not close its output, so the timeout has to kill the process
+            CompletableFuture<Void> watchdog = CompletableFuture.runAsync(process::destroyForcibly,
+                    CompletableFuture.delayedExecutor(timeout.toMillis(), TimeUnit.MILLISECONDS));
+            StringBuilder messages = new StringBuilder();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (output != null) {
+                        output.accept(line);
+                    } else {
+                        messages.append(line).append('\n');
+                    }
+                }
+            }
+            int exitValue = process.waitFor();
+            if (!watchdog.cancel(false)) {
+                throw new IllegalStateException("Timeout of " + command);
+            }
+            if (exitValue != 0) {
+                throw new IllegalStateException(command + " failed with exit code " + exitValue + " " + messages);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to run " + command, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted " + command, e);
+        }
+    }
+}
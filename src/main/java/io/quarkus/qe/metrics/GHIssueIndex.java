@@ -0,0 +1,285 @@
+package io.quarkus.qe.metrics;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricID;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Tag;
+import org.jboss.logging.Logger;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Local index of issues and PRs of repositories, label and state counts are computed from it instead of searches
+ *
+ * The index of a repository is seeded by paginating /issues?state=all and then kept current with since=<last updated_at>
+ * deltas, so every refresh costs one core API request (answered with 304 when nothing changed) instead of a search
+ * per metric. Progress is kept after every page, so a failed seed continues where it stopped. Issues deleted
+ * or transferred to another repository stay in the index.
+ */
+@ApplicationScoped
+public class GHIssueIndex {
+
+    private static final Logger log = Logger.getLogger(GHIssueIndex.class);
+    // since is a whole second and records updated while the previous listing was read can be missed at its end
+    static final long SINCE_OVERLAP_SECONDS = 60;
+
+    @ConfigProperty(name = "gh.index.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @Inject
+    GHMetricsCollector collector;
+
+    @Inject
+    GHClient ghClient;
+
+    private final Map<String, RepositoryIndex> indexes = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Register gauge counted from the index of the repository, the index is synced before counting in every refresh
+     */
+    public MetricID register(MetricRegistry registry, Metadata metadata, String repositoryName,
+                             ToLongFunction<RepositoryIndex> count, Tag... tags) {
+        MetricID metricID = collector.registerGauge(registry, metadata, tags);
+        indexes.computeIfAbsent(repositoryName, name -> {
+            RepositoryIndex index = new RepositoryIndex(name);
+            collector.registerBatch(batchName(name), GHEndpointFamily.CORE, index.counts.keySet(), () -> {
+                index.sync(ghClient);
+                Map<MetricID, Number> values = new HashMap<>();
+                index.counts.forEach((countedMetricID, counter) -> values.put(countedMetricID, counter.applyAsLong(index)));
+                return values;
+            });
+            return index;
+        }).counts.put(metricID, count);
+        return metricID;
+    }
+
+    /**
+     * Forget counts of series matching the filter, indexes without counts are dropped
+     */
+    public void unregister(Predicate<MetricID> filter) {
+        List<String> removed = new ArrayList<>();
+        indexes.forEach((repositoryName, index) -> {
+            index.counts.keySet().removeIf(filter);
+            if (index.counts.isEmpty()) {
+                removed.add(repositoryName);
+            }
+        });
+        for (String repositoryName : removed) {
+            indexes.remove(repositoryName);
+            collector.unregisterBatch(batchName(repositoryName));
+        }
+    }
+
+    /**
+     * Number of issues and PRs held by all indexes
+     */
+    public long getRecordCount() {
+        long records = 0;
+        for (RepositoryIndex index : indexes.values()) {
+            records += index.size();
+        }
+        return records;
+    }
+
+    private static String batchName(String repositoryName) {
+        return "index:" + repositoryName;
+    }
+
+    /**
+     * Issues and PRs of one repository
+     */
+    static class RepositoryIndex {
+
+        private final String repositoryName;
+        private final Map<Integer, GHIssueRecord> records = new HashMap<>();
+        private final Map<String, Integer> labelIds = new HashMap<>();
+        // newest updated_at of indexed records, 0 until the first page of the seed is read
+        private long updatedAt;
+        final Map<MetricID, ToLongFunction<RepositoryIndex>> counts = new ConcurrentHashMap<>();
+
+        RepositoryIndex(String repositoryName) {
+            this.repositoryName = repositoryName;
+        }
+
+        /**
+         * Read issues and PRs updated since the last sync, all of them when the index is empty, throws when it failed
+         *
+         * Pages come oldest first and every page moves updatedAt, so the next sync continues after the last read page.
+         * Record updated while paging moves to the end of the listing and shifts the following records one position
+         * back, so the next page by number would skip one of them. Next page is requested since updated_at of the last
+         * read record instead, page number is followed only when the whole page was updated in the same second.
+         * Those pages are not requested again, so only the first page of deltas is cached.
+         */
+        void sync(GHClient ghClient) {
+            long since;
+            synchronized (this) {
+                since = updatedAt;
+            }
+            long cursor = since > 0 ? since - SINCE_OVERLAP_SECONDS : 0;
+            URL url = issuesUrl(ghClient, cursor);
+            // only the first page of deltas is requested again in the next sync when nothing changed
+            boolean cached = since > 0;
+            int changed = 0;
+            while (url != null) {
+                List<GHIssueRecord> page = new ArrayList<>();
+                URL next = ghClient.listIssuesPage(url, cached, this::labelId, page::addAll);
+                cached = false;
+                synchronized (this) {
+                    for (GHIssueRecord record : page) {
+                        records.put(record.number, record);
+                        updatedAt = Math.max(updatedAt, record.updatedAt);
+                    }
+                }
+                changed += page.size();
+                long last = page.isEmpty() ? cursor : page.get(page.size() - 1).updatedAt;
+                if (next != null && last > cursor) {
+                    // since is inclusive, records of the last second are read again
+                    cursor = last;
+                    url = issuesUrl(ghClient, cursor);
+                } else {
+                    url = next;
+                }
+            }
+            log.debug("Index of " + repositoryName + " synced, " + changed + " changed records");
+        }
+
+        private URL issuesUrl(GHClient ghClient, long since) {
+            String address = ghClient.getApiUrl() + "/repos/" + repositoryName +
+                    "/issues?state=all&sort=updated&direction=asc&per_page=100" +
+                    (since > 0 ? "&since=" + Instant.ofEpochSecond(since) : "");
+            try {
+                return new URL(address);
+            } catch (MalformedURLException e) {
+                throw new IllegalStateException("Malformed URL " + address, e);
+            }
+        }
+
+        synchronized int size() {
+            return records.size();
+        }
+
+        synchronized int labelId(String label) {
+            return labelIds.computeIfAbsent(label.toLowerCase(Locale.ROOT), name -> labelIds.size());
+        }
+
+        /**
+         * Same as search is:issue/is:pr is:open/is:closed label:{label}
+         */
+        long count(boolean pullRequest, boolean open, String label) {
+            return count(pullRequest, open, new LabelFilter(List.of(label), List.of()));
+        }
+
+        synchronized long count(boolean pullRequest, boolean open, LabelFilter filter) {
+            int[] included = ids(filter.included, true);
+            int[] excluded = ids(filter.excluded, false);
+            if (included == null) {
+                return 0;
+            }
+            long count = 0;
+            for (GHIssueRecord record : records.values()) {
+                if (record.pullRequest == pullRequest && record.open == open && matches(record, included, excluded)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Same as search is:issue/is:pr {action}:>{since}, action is created, closed or merged
+         */
+        synchronized long countSince(boolean pullRequest, String action, long since) {
+            long count = 0;
+            for (GHIssueRecord record : records.values()) {
+                if (record.pullRequest != pullRequest) {
+                    continue;
+                }
+                long time = "created".equals(action) ? record.createdAt : "closed".equals(action) ? record.closedAt : record.mergedAt;
+                if (time > since) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Ids of labels, null when a required label is not used by any indexed issue
+         */
+        private int[] ids(List<String> labels, boolean required) {
+            int[] ids = new int[labels.size()];
+            for (int i = 0; i < ids.length; i++) {
+                Integer id = labelIds.get(labels.get(i).toLowerCase(Locale.ROOT));
+                if (id == null && required) {
+                    return null;
+                }
+                // -1 is never matched
+                ids[i] = id == null ? -1 : id;
+            }
+            return ids;
+        }
+
+        private static boolean matches(GHIssueRecord record, int[] included, int[] excluded) {
+            for (int label : included) {
+                if (!record.hasLabel(label)) {
+                    return false;
+                }
+            }
+            for (int label : excluded) {
+                if (record.hasLabel(label)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Label qualifiers of a search query, e.g. gh.open.issues entry "label:kind/bug -label:triage/invalid"
+     */
+    static class LabelFilter {
+        final List<String> included;
+        final List<String> excluded;
+
+        LabelFilter(List<String> included, List<String> excluded) {
+            this.included = included;
+            this.excluded = excluded;
+        }
+
+        /**
+         * Filter of the query, null when the query has other qualifiers or label alternatives (label:a,b)
+         */
+        static LabelFilter parse(String query) {
+            List<String> included = new ArrayList<>();
+            List<String> excluded = new ArrayList<>();
+            for (String qualifier : GHQueryPlanner.normalize(query).split("\\+")) {
+                if (qualifier.isEmpty()) {
+                    continue;
+                }
+                boolean negated = qualifier.startsWith("-");
+                String token = negated ? qualifier.substring(1) : qualifier;
+                if (!token.startsWith("label:") || token.contains(",")) {
+                    return null;
+                }
+                String label = token.substring("label:".length()).replace("\"", "");
+                (negated ? excluded : included).add(label);
+            }
+            return new LabelFilter(included, excluded);
+        }
+    }
+}
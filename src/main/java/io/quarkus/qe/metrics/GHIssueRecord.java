@@ -0,0 +1,38 @@
+package io.quarkus.qe.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Compact record of an issue or PR kept by {@link GHIssueIndex}
+ *
+ * Labels are ids assigned by the index of the repository, timestamps are epoch seconds, 0 when not set.
+ */
+final class GHIssueRecord {
+
+    final int number;
+    final boolean pullRequest;
+    final boolean open;
+    // sorted
+    final int[] labels;
+    final long createdAt;
+    final long closedAt;
+    final long mergedAt;
+    final long updatedAt;
+
+    GHIssueRecord(int number, boolean pullRequest, boolean open, int[] labels,
+                  long createdAt, long closedAt, long mergedAt, long updatedAt) {
+        this.number = number;
+        this.pullRequest = pullRequest;
+        this.open = open;
+        this.labels = labels;
+        Arrays.sort(this.labels);
+        this.createdAt = createdAt;
+        this.closedAt = closedAt;
+        this.mergedAt = mergedAt;
+        this.updatedAt = updatedAt;
+    }
+
+    boolean hasLabel(int label) {
+        return Arrays.binarySearch(labels, label) >= 0;
+    }
+}
@@ -0,0 +1,165 @@
+package io.quarkus.qe.metrics;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Thread-safe cache with per-entry TTL, single-flight loading and stale-while-revalidate
+ *
+ * Only one load per key is in flight, concurrent callers wait for it when there is no value yet, or get the stale
+ * value when the entry has expired. TTL of every entry is randomized by jitter, so entries loaded at the same time
+ * do not expire at the same time. When the size bound is reached, entries closest to expiration are evicted first.
+ */
+public class GHLoadingCache<V> {
+
+    private final Map<String, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Function<String, V> loader;
+    private final long ttlMillis;
+    private final double jitter;
+    private final int maxSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder loadTimeNanos = new LongAdder();
+
+    public GHLoadingCache(Function<String, V> loader, long ttlMillis, double jitter, int maxSize) {
+        this.loader = loader;
+        this.ttlMillis = ttlMillis;
+        this.jitter = jitter;
+        this.maxSize = maxSize;
+    }
+
+    public V get(String key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            entry = entries.computeIfAbsent(key, k -> new Entry<>());
+            if (entries.size() > maxSize) {
+                evict();
+            }
+        }
+        while (true) {
+            V value = entry.value;
+            if (value != null && System.currentTimeMillis() < entry.expiresAt) {
+                hits.increment();
+                return value;
+            }
+            CompletableFuture<V> load = new CompletableFuture<>();
+            if (entry.inflight.compareAndSet(null, load)) {
+                return load(key, entry, load, value);
+            }
+            if (value != null) {
+                staleHits.increment();
+                return value;
+            }
+            CompletableFuture<V> inflight = entry.inflight.get();
+            if (inflight != null) {
+                misses.increment();
+                try {
+                    return inflight.join();
+                } catch (CompletionException e) {
+                    throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+                }
+            }
+            // load has just finished, check the entry again
+        }
+    }
+
+    private V load(String key, Entry<V> entry, CompletableFuture<V> load, V staleValue) {
+        misses.increment();
+        long start = System.nanoTime();
+        try {
+            V value = loader.apply(key);
+            long ttl = (long) (ttlMillis * (1 + jitter * (ThreadLocalRandom.current().nextDouble() * 2 - 1)));
+            entry.value = value;
+            entry.expiresAt = System.currentTimeMillis() + ttl;
+            load.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            loadFailures.increment();
+            load.completeExceptionally(e);
+            if (staleValue != null) {
+                return staleValue;
+            }
+            throw e;
+        } finally {
+            loads.increment();
+            loadTimeNanos.add(System.nanoTime() - start);
+            entry.inflight.set(null);
+        }
+    }
+
+    /**
+     * Remove entries expired for longer than their TTL, the values are not served as stale any more
+     */
+    public void evictExpired() {
+        long threshold = System.currentTimeMillis() - ttlMillis;
+        entries.entrySet().removeIf(e -> e.getValue().inflight.get() == null && e.getValue().expiresAt < threshold);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    private void evict() {
+        while (entries.size() > maxSize) {
+            String oldestKey = null;
+            long oldestExpiration = Long.MAX_VALUE;
+            for (Map.Entry<String, Entry<V>> e : entries.entrySet()) {
+                Entry<V> candidate = e.getValue();
+                // entries without value are about to be loaded
+                if (candidate.value != null && candidate.inflight.get() == null && candidate.expiresAt < oldestExpiration) {
+                    oldestKey = e.getKey();
+                    oldestExpiration = candidate.expiresAt;
+                }
+            }
+            if (oldestKey == null) {
+                return;
+            }
+            entries.remove(oldestKey);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getStaleHits() {
+        return staleHits.sum();
+    }
+
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    public long getLoadFailures() {
+        return loadFailures.sum();
+    }
+
+    public double getAverageLoadTimeMillis() {
+        long count = loads.sum();
+        return count == 0 ? 0 : loadTimeNanos.sum() / 1_000_000.0 / count;
+    }
+
+    static class Entry<V> {
+        volatile V value;
+        volatile long expiresAt;
+        final AtomicReference<CompletableFuture<V>> inflight = new AtomicReference<>();
+    }
+}
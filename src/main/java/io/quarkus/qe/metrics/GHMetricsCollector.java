@@ -0,0 +1,473 @@
+package io.quarkus.qe.metrics;
+
+import io.quarkus.scheduler.Scheduled;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricID;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Tag;
+import org.jboss.logging.Logger;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Collection engine refreshing values of all registered GitHub metrics on its own schedule
+ *
+ * Gauges registered via this class only read the latest snapshot, so /metrics scrape never waits for GitHub.
+ * The snapshot is rebuilt in background by {@link #refresh()} and swapped atomically once all values are fetched.
+ *
+ * Fetches run in parallel when gh.refresh.concurrency is bigger than 1, virtual threads are used when the runtime
+ * supports them. The number of concurrent fetches can be further limited per {@link GHEndpointFamily}.
+ *
+ * Derived metrics are not fetched, their values are computed from the merged snapshot at the end of every refresh.
+ *
+ * Metrics refreshed least recently go first, so metrics skipped because of exhausted rate limit or open circuit
+ * are prioritised in the next refresh. Failed fetches keep their last values, so outages do not show as drops to 0.
+ *
+ * With gh.refresh.adaptive.enabled, every fetch has its own interval. The interval grows by gh.refresh.adaptive.backoff
+ * every time the fetched values did not change, up to gh.refresh.adaptive.max-interval (can be set per metric name,
+ * e.g. gh.refresh.adaptive.max-interval.gh_repo_stars), and drops back to every refresh as soon as the values change.
+ */
+@ApplicationScoped
+public class GHMetricsCollector {
+
+    private static final Logger log = Logger.getLogger(GHMetricsCollector.class);
+
+    @ConfigProperty(name = "gh.refresh.concurrency", defaultValue = "1")
+    int concurrency;
+    @ConfigProperty(name = "gh.refresh.period")
+    Duration refreshPeriod;
+    @ConfigProperty(name = "gh.refresh.adaptive.enabled", defaultValue = "false")
+    boolean adaptive;
+    @ConfigProperty(name = "gh.refresh.adaptive.max-interval", defaultValue = "1h")
+    Duration adaptiveMaxInterval;
+    @ConfigProperty(name = "gh.refresh.adaptive.backoff", defaultValue = "2")
+    double adaptiveBackoff;
+
+    @Inject
+    Config config;
+
+    private final Map<String, Fetch> fetches = new ConcurrentHashMap<>();
+    private final AtomicReference<Map<MetricID, Number>> snapshot = new AtomicReference<>(Collections.emptyMap());
+    private final List<Consumer<Map<MetricID, Number>>> refreshListeners = new CopyOnWriteArrayList<>();
+    // time of the last successful fetch of every series, used to report staleness
+    private final Map<MetricID, Long> refreshedAt = new ConcurrentHashMap<>();
+    private final Set<String> metricNames = ConcurrentHashMap.newKeySet();
+    // series with registered gauge, restored values of other series are pruned
+    private final Set<MetricID> registered = ConcurrentHashMap.newKeySet();
+    private volatile Map<String, Long> oldestRefreshByName = Collections.emptyMap();
+    private volatile long lastRefreshDurationMillis;
+    private final LongAdder refreshes = new LongAdder();
+    private final Map<MetricID, Function<Map<MetricID, Number>, Number>> derived = new ConcurrentHashMap<>();
+    private volatile int lastSkippedFetches;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile boolean refreshEnabled = true;
+    // max adaptive interval per metric name, names without own setting use gh.refresh.adaptive.max-interval
+    private final Map<String, Long> adaptiveMaxIntervals = new ConcurrentHashMap<>();
+
+    private ExecutorService executor;
+    private Semaphore globalPermits;
+    private final Map<GHEndpointFamily, Semaphore> familyPermits = new EnumMap<>(GHEndpointFamily.class);
+
+    @PostConstruct
+    void init() {
+        if (concurrency > 1) {
+            executor = createExecutor(concurrency);
+        }
+        globalPermits = new Semaphore(Math.max(1, concurrency));
+        for (GHEndpointFamily family : GHEndpointFamily.values()) {
+            int familyConcurrency = config.getOptionalValue("gh.refresh.concurrency." + family.name().toLowerCase(), Integer.class)
+                    .orElse(concurrency);
+            familyPermits.put(family, new Semaphore(Math.max(1, familyConcurrency)));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public void register(MetricRegistry registry, Metadata metadata, GHEndpointFamily family, Supplier<Number> fetcher, Tag... tags) {
+        MetricID metricID = registerGauge(registry, metadata, tags);
+        fetches.put(metricID.toString(), new Fetch(metricID.toString(), family, metricID, List.of(),
+                () -> Map.of(metricID, fetcher.get())));
+    }
+
+    /**
+     * Register gauge without own fetcher, the value is provided by a batch fetch
+     */
+    public MetricID registerGauge(MetricRegistry registry, Metadata metadata, Tag... tags) {
+        MetricID metricID = new MetricID(metadata.getName(), tags);
+        metricNames.add(metricID.getName());
+        registered.add(metricID);
+        registry.register(metadata, (Gauge<Number>) () -> getValue(metricID), tags);
+        return metricID;
+    }
+
+    /**
+     * Register fetch providing values of several metrics at once, replaces previously registered batch with same name
+     */
+    public void registerBatch(String name, GHEndpointFamily family, Supplier<Map<MetricID, Number>> fetcher) {
+        registerBatch(name, family, List.of(), fetcher);
+    }
+
+    /**
+     * Register batch fetch of known series, so the batch is matched by {@link #setMinRefreshInterval(Predicate, Duration)}
+     */
+    public void registerBatch(String name, GHEndpointFamily family, Collection<MetricID> metricIDs,
+                              Supplier<Map<MetricID, Number>> fetcher) {
+        fetches.put(name, new Fetch(name, family, null, metricIDs, fetcher));
+    }
+
+    /**
+     * Register gauge computed from other values of the snapshot, formula returns null when inputs are not available yet
+     */
+    public MetricID registerDerived(MetricRegistry registry, Metadata metadata,
+                                    Function<Map<MetricID, Number>, Number> formula, Tag... tags) {
+        MetricID metricID = registerGauge(registry, metadata, tags);
+        derived.put(metricID, formula);
+        return metricID;
+    }
+
+    public void unregisterBatch(String name) {
+        fetches.remove(name);
+    }
+
+    /**
+     * Remove gauges, fetches and values of metrics matching the filter, batches have to be unregistered separately
+     */
+    public void unregister(MetricRegistry registry, Predicate<MetricID> filter) {
+        fetches.values().removeIf(fetch -> fetch.metricID != null && filter.test(fetch.metricID));
+        derived.keySet().removeIf(filter);
+        registered.removeIf(filter);
+        registry.removeMatching((metricID, metric) -> filter.test(metricID));
+        refreshedAt.keySet().removeIf(filter);
+        snapshot.updateAndGet(current -> {
+            Map<MetricID, Number> retained = new HashMap<>(current);
+            retained.keySet().removeIf(filter);
+            return Collections.unmodifiableMap(retained);
+        });
+    }
+
+    public Number getValue(MetricID metricID) {
+        return snapshot.get().getOrDefault(metricID, 0);
+    }
+
+    public Map<MetricID, Number> getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Names of all metrics registered via this collector
+     */
+    public Set<String> getMetricNames() {
+        return metricNames;
+    }
+
+    /**
+     * Seconds since the least recently refreshed series of the metric was fetched, 0 when it was not fetched yet
+     */
+    public double getStalenessSeconds(String metricName) {
+        Long oldest = oldestRefreshByName.get(metricName);
+        return oldest == null ? 0 : (System.currentTimeMillis() - oldest) / 1000.0;
+    }
+
+    public double getLastRefreshDurationSeconds() {
+        return lastRefreshDurationMillis / 1000.0;
+    }
+
+    public long getRefreshCount() {
+        return refreshes.sum();
+    }
+
+    /**
+     * Number of fetches not due in the last refresh because of their minimal or adaptive interval
+     */
+    public int getLastSkippedFetches() {
+        return lastSkippedFetches;
+    }
+
+    /**
+     * Seed the snapshot with values known from previous run, values fetched in the meantime take precedence
+     */
+    public void restore(Map<MetricID, Number> values) {
+        snapshot.updateAndGet(current -> {
+            Map<MetricID, Number> merged = new HashMap<>(values);
+            merged.putAll(current);
+            return Collections.unmodifiableMap(merged);
+        });
+    }
+
+    /**
+     * Drop values of series without registered gauge, e.g. restored series of repositories removed from configuration
+     * or owned by another shard, so they are neither saved again nor pushed
+     */
+    public void pruneUnregistered() {
+        Map<MetricID, Number> pruned = snapshot.updateAndGet(current -> {
+            if (registered.containsAll(current.keySet())) {
+                return current;
+            }
+            Map<MetricID, Number> retained = new HashMap<>(current);
+            retained.keySet().retainAll(registered);
+            return Collections.unmodifiableMap(retained);
+        });
+        log.debug(pruned.size() + " series kept in the snapshot after pruning");
+    }
+
+    /**
+     * Add deltas to current values, used for updates pushed by GitHub, series without a value yet are left untouched
+     */
+    public void adjust(Map<MetricID, Long> deltas) {
+        snapshot.updateAndGet(current -> {
+            Map<MetricID, Number> adjusted = null;
+            for (Map.Entry<MetricID, Long> delta : deltas.entrySet()) {
+                Number value = current.get(delta.getKey());
+                if (value == null) {
+                    continue;
+                }
+                if (adjusted == null) {
+                    adjusted = new HashMap<>(current);
+                }
+                adjusted.put(delta.getKey(), Math.max(0, value.longValue() + delta.getValue()));
+            }
+            return adjusted == null ? current : Collections.unmodifiableMap(adjusted);
+        });
+    }
+
+    /**
+     * Refresh metrics matching the filter at most once per given interval instead of every refresh
+     */
+    public void setMinRefreshInterval(Predicate<MetricID> filter, Duration interval) {
+        for (Fetch fetch : fetches.values()) {
+            if (fetch.provides(filter)) {
+                fetch.minIntervalMillis = interval.toMillis();
+            }
+        }
+    }
+
+    /**
+     * Listener is called with the new snapshot after every refresh
+     */
+    public void addRefreshListener(Consumer<Map<MetricID, Number>> listener) {
+        refreshListeners.add(listener);
+    }
+
+    /**
+     * Refreshes are skipped while disabled, e.g. until GitHub tokens are validated, gauges keep restored values
+     */
+    public void setRefreshEnabled(boolean refreshEnabled) {
+        this.refreshEnabled = refreshEnabled;
+    }
+
+    /**
+     * Scheduled refresh, can be also called directly (e.g. right after startup), overlapping refresh is skipped
+     */
+    @Scheduled(every = "{gh.refresh.period}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void refresh() {
+        if (!refreshEnabled || fetches.isEmpty() || !refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refreshFetches();
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    private void refreshFetches() {
+        long start = System.currentTimeMillis();
+        Map<MetricID, Number> values = new ConcurrentHashMap<>();
+        List<Fetch> plan = new ArrayList<>();
+        for (Fetch fetch : fetches.values()) {
+            if (start - fetch.lastRefreshed >= Math.max(fetch.minIntervalMillis, fetch.adaptiveIntervalMillis)) {
+                plan.add(fetch);
+            }
+        }
+        lastSkippedFetches = fetches.size() - plan.size();
+        plan.sort(Comparator.comparingLong(fetch -> fetch.lastRefreshed));
+        if (executor == null) {
+            plan.forEach(fetch -> fetch.run(values));
+        } else {
+            List<CompletableFuture<Void>> futures = new ArrayList<>(plan.size());
+            plan.forEach(fetch -> futures.add(CompletableFuture.runAsync(() -> fetch.run(values), executor)));
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        }
+        // values not fetched in this refresh may have been adjusted in the meantime, merge with the current snapshot
+        Map<MetricID, Number> refreshed = snapshot.updateAndGet(current -> {
+            Map<MetricID, Number> merged = new HashMap<>(current);
+            merged.putAll(values);
+            derived.forEach((metricID, formula) -> {
+                Number value = formula.apply(merged);
+                if (value != null) {
+                    merged.put(metricID, value);
+                }
+            });
+            return Collections.unmodifiableMap(merged);
+        });
+        long now = System.currentTimeMillis();
+        values.keySet().forEach(metricID -> refreshedAt.put(metricID, now));
+        derived.keySet().forEach(metricID -> {
+            if (refreshed.containsKey(metricID)) {
+                refreshedAt.put(metricID, now);
+            }
+        });
+        Map<String, Long> oldest = new HashMap<>();
+        refreshedAt.forEach((metricID, time) -> oldest.merge(metricID.getName(), time, Math::min));
+        oldestRefreshByName = oldest;
+        lastRefreshDurationMillis = now - start;
+        refreshes.increment();
+        log.debug("Refreshed " + plan.size() + " metrics in " + lastRefreshDurationMillis + " ms");
+        for (Consumer<Map<MetricID, Number>> listener : refreshListeners) {
+            try {
+                listener.accept(refreshed);
+            } catch (RuntimeException e) {
+                log.error("Refresh listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * Virtual threads are available since Java 21, fixed thread pool is used as fallback on older runtimes
+     */
+    private static ExecutorService createExecutor(int concurrency) {
+        try {
+            ExecutorService virtualExecutor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            log.info("Refreshing metrics on virtual threads, concurrency " + concurrency);
+            return virtualExecutor;
+        } catch (ReflectiveOperationException e) {
+            log.info("Virtual threads are not available, refreshing metrics on " + concurrency + " platform threads");
+            return Executors.newFixedThreadPool(concurrency, runnable -> {
+                Thread thread = new Thread(runnable, "gh-metrics-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private class Fetch {
+        private final String name;
+        private final GHEndpointFamily family;
+        // single metric fetched, null for batches
+        private final MetricID metricID;
+        // series provided by a batch when known upfront
+        private final Collection<MetricID> metricIDs;
+        private final Supplier<Map<MetricID, Number>> fetcher;
+        private volatile long lastRefreshed;
+        private volatile long minIntervalMillis;
+        private volatile long adaptiveIntervalMillis;
+        private Map<MetricID, Number> lastValues;
+
+        Fetch(String name, GHEndpointFamily family, MetricID metricID, Collection<MetricID> metricIDs,
+              Supplier<Map<MetricID, Number>> fetcher) {
+            this.name = name;
+            this.family = family;
+            this.metricID = metricID;
+            this.metricIDs = metricIDs;
+            this.fetcher = fetcher;
+        }
+
+        boolean provides(Predicate<MetricID> filter) {
+            if (metricID != null) {
+                return filter.test(metricID);
+            }
+            for (MetricID batchMetricID : metricIDs) {
+                if (filter.test(batchMetricID)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void run(Map<MetricID, Number> values) {
+            Semaphore permits = familyPermits.get(family);
+            try {
+                globalPermits.acquire();
+                try {
+                    permits.acquire();
+                    try {
+                        // exhausted budget must not hold the permits, the fetch is prioritised in the next refresh
+                        Map<MetricID, Number> fetched = GHRateLimits.failFast(fetcher);
+                        values.putAll(fetched);
+                        lastRefreshed = System.currentTimeMillis();
+                        if (adaptive) {
+                            adapt(fetched);
+                        }
+                    } finally {
+                        permits.release();
+                    }
+                } finally {
+                    globalPermits.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (GHRateLimitExceededException | GHCircuitOpenException e) {
+                log.debug("Skipping refresh of " + name + ": " + e.getMessage());
+            } catch (GHRequestException e) {
+                // last value is kept, staleness of the metric grows until the next successful fetch
+                log.warn("Unable to refresh " + name + ": " + e.getMessage());
+            } catch (RuntimeException e) {
+                log.error("Unable to refresh " + name, e);
+            }
+        }
+
+        private void adapt(Map<MetricID, Number> fetched) {
+            if (fetched.equals(lastValues)) {
+                long maxIntervalMillis = Long.MAX_VALUE;
+                for (MetricID fetchedID : fetched.keySet()) {
+                    // batch is capped by the strictest of its metrics
+                    maxIntervalMillis = Math.min(maxIntervalMillis, adaptiveMaxInterval(fetchedID.getName()));
+                }
+                adaptiveIntervalMillis = nextInterval(adaptiveIntervalMillis, refreshPeriod.toMillis(), adaptiveBackoff,
+                        maxIntervalMillis);
+            } else {
+                adaptiveIntervalMillis = 0;
+            }
+            lastValues = fetched;
+        }
+    }
+
+    /**
+     * Interval after unchanged fetch, the first step skips one refresh period
+     */
+    static long nextInterval(long intervalMillis, long periodMillis, double backoff, long maxIntervalMillis) {
+        long next = intervalMillis == 0 ? periodMillis : (long) (intervalMillis * backoff);
+        return Math.min(next, maxIntervalMillis);
+    }
+
+    private long adaptiveMaxInterval(String metricName) {
+        return adaptiveMaxIntervals.computeIfAbsent(metricName, name ->
+                config.getOptionalValue("gh.refresh.adaptive.max-interval." + name, Duration.class)
+                        .orElse(adaptiveMaxInterval).toMillis());
+    }
+}
@@ -0,0 +1,62 @@
+package io.quarkus.qe.metrics;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Discovery of repositories of organizations configured in gh.orgs
+ *
+ * Listing pages are parsed as a stream and only repository names are kept. Unchanged pages are answered
+ * with 304 Not Modified, so periodic discovery of large organizations costs little rate limit.
+ */
+@ApplicationScoped
+public class GHOrganizationDiscovery {
+
+    private static final Logger log = Logger.getLogger(GHOrganizationDiscovery.class);
+
+    @ConfigProperty(name = "gh.orgs")
+    Optional<List<String>> organizations;
+
+    @Inject
+    GHClient ghClient;
+
+    public boolean isEnabled() {
+        return organizations.isPresent() && !organizations.get().isEmpty();
+    }
+
+    /**
+     * Non-archived repositories of all configured organizations, null when any listing failed
+     */
+    public Set<String> discover() {
+        if (!isEnabled()) {
+            return Collections.emptySet();
+        }
+        Set<String> repositories = new LinkedHashSet<>();
+        for (String organization : organizations.get()) {
+            String address = ghClient.getApiUrl() + "/orgs/" + organization.trim() + "/repos?per_page=100&type=all";
+            List<String> names;
+            try {
+                names = ghClient.listRepositoryNames(new URL(address));
+            } catch (MalformedURLException e) {
+                log.error("Malformed URL " + address, e);
+                return null;
+            } catch (RuntimeException e) {
+                log.error("Unable to list repositories of organization " + organization + ": " + e.getMessage());
+                return null;
+            }
+            log.debug("Discovered " + names.size() + " repositories of organization " + organization);
+            repositories.addAll(names);
+        }
+        return repositories;
+    }
+}
@@ -0,0 +1,307 @@
+package io.quarkus.qe.metrics;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricID;
+import org.jboss.logging.Logger;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.json.Json;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonGeneratorFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Optional push of gh_* metrics to OpenTelemetry collector (OTLP/HTTP with JSON encoding)
+ *
+ * After every refresh only series whose value has changed are sent, all series are re-sent every gh.push.full-interval
+ * so the receiver does not mark them stale. Series are sent in gzip compressed batches, failed batches are retried
+ * with exponential backoff and stay in a bounded buffer for the next refresh when all retries fail.
+ *
+ * Push runs on its own thread, so an unreachable receiver does not delay refreshes. Refresh finished while
+ * the previous push is still running is not pushed, its changes are picked by the next push.
+ */
+@ApplicationScoped
+public class GHPushExporter {
+
+    private static final Logger log = Logger.getLogger(GHPushExporter.class);
+    private static final JsonGeneratorFactory generatorFactory = Json.createGeneratorFactory(Collections.emptyMap());
+
+    @ConfigProperty(name = "gh.push.url")
+    Optional<String> pushUrl;
+    @ConfigProperty(name = "gh.push.batch-size", defaultValue = "1000")
+    int batchSize;
+    @ConfigProperty(name = "gh.push.buffer.max-series", defaultValue = "100000")
+    int bufferMaxSeries;
+    @ConfigProperty(name = "gh.push.max-retries", defaultValue = "3")
+    int maxRetries;
+    @ConfigProperty(name = "gh.push.retry.backoff", defaultValue = "1s")
+    Duration retryBackoff;
+    @ConfigProperty(name = "gh.push.full-interval", defaultValue = "5m")
+    Duration fullInterval;
+    @ConfigProperty(name = "gh.http.connect-timeout", defaultValue = "10s")
+    Duration connectTimeout;
+    @ConfigProperty(name = "gh.http.read-timeout", defaultValue = "30s")
+    Duration readTimeout;
+
+    @Inject
+    GHMetricsCollector collector;
+
+    private HttpClient httpClient;
+    private ExecutorService executor;
+    private final AtomicBoolean pushing = new AtomicBoolean();
+    // values acknowledged by the receiver
+    private final Map<MetricID, Number> pushed = new HashMap<>();
+    // changed series not sent yet, the latest value wins
+    private final LinkedHashMap<MetricID, Number> pending = new LinkedHashMap<>();
+    private long lastFullPush;
+    private volatile int bufferedSeries;
+
+    private final LongAdder sentSeries = new LongAdder();
+    private final LongAdder failedRequests = new LongAdder();
+    private final LongAdder droppedSeries = new LongAdder();
+
+    /**
+     * Push every following refresh, does nothing when gh.push.url is not set
+     */
+    public void init() {
+        if (pushUrl.isEmpty()) {
+            return;
+        }
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .build();
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gh-push");
+            thread.setDaemon(true);
+            return thread;
+        });
+        collector.addRefreshListener(this::pushAsync);
+        log.info("Pushing metrics to " + pushUrl.get());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return httpClient != null;
+    }
+
+    /**
+     * Push the snapshot on the push thread, skipped when the previous push is still running
+     */
+    void pushAsync(Map<MetricID, Number> snapshot) {
+        if (!pushing.compareAndSet(false, true)) {
+            log.debug("Previous push is still running, skipping push of this refresh");
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    push(snapshot);
+                } catch (RuntimeException e) {
+                    log.error("Push failed", e);
+                } finally {
+                    pushing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pushing.set(false);
+        }
+    }
+
+    synchronized void push(Map<MetricID, Number> snapshot) {
+        long now = System.currentTimeMillis();
+        // series removed from the snapshot (unregistered repositories, other shard) are forgotten
+        pushed.keySet().retainAll(snapshot.keySet());
+        pending.keySet().retainAll(snapshot.keySet());
+        boolean full = now - lastFullPush >= fullInterval.toMillis();
+        for (Map.Entry<MetricID, Number> entry : snapshot.entrySet()) {
+            if (full || !entry.getValue().equals(pushed.get(entry.getKey()))) {
+                pending.put(entry.getKey(), entry.getValue());
+            }
+        }
+        Iterator<MetricID> oldest = pending.keySet().iterator();
+        while (pending.size() > bufferMaxSeries) {
+            oldest.next();
+            oldest.remove();
+            droppedSeries.increment();
+        }
+
+        // the first batch failing for good stops the push, the remaining series stay pending for the next one
+        List<Map.Entry<MetricID, Number>> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+        boolean allSent = true;
+        for (Map.Entry<MetricID, Number> entry : new ArrayList<>(pending.entrySet())) {
+            batch.add(entry);
+            if (batch.size() >= batchSize) {
+                allSent = sendBatch(batch, now);
+                batch.clear();
+                if (!allSent) {
+                    break;
+                }
+            }
+        }
+        if (allSent && !batch.isEmpty()) {
+            allSent = sendBatch(batch, now);
+        }
+        if (full && allSent) {
+            lastFullPush = now;
+        }
+        bufferedSeries = pending.size();
+    }
+
+    private boolean sendBatch(List<Map.Entry<MetricID, Number>> batch, long timestampMillis) {
+        byte[] body;
+        try {
+            body = encode(batch, timestampMillis);
+        } catch (IOException e) {
+            log.error("Unable to encode " + batch.size() + " series", e);
+            return false;
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(pushUrl.get()))
+                .timeout(readTimeout)
+                .header("Content-Type", "application/json")
+                .header("Content-Encoding", "gzip")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        long backoff = retryBackoff.toMillis();
+        for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            if (attempt > 0) {
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                backoff *= 2;
+            }
+            try {
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                int status = response.statusCode();
+                if (status >= 200 && status < 300) {
+                    for (Map.Entry<MetricID, Number> entry : batch) {
+                        pushed.put(entry.getKey(), entry.getValue());
+                        pending.remove(entry.getKey(), entry.getValue());
+                    }
+                    sentSeries.add(batch.size());
+                    return true;
+                }
+                failedRequests.increment();
+                if (status != 429 && status < 500) {
+                    // the receiver rejected the data, sending it again would not help
+                    log.error("Push of " + batch.size() + " series rejected with status code " + status);
+                    batch.forEach(entry -> pending.remove(entry.getKey(), entry.getValue()));
+                    droppedSeries.add(batch.size());
+                    return false;
+                }
+                log.warn("Push of " + batch.size() + " series failed with status code " + status);
+            } catch (IOException e) {
+                failedRequests.increment();
+                log.warn("Push of " + batch.size() + " series failed: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        log.error("Push of " + batch.size() + " series failed " + (maxRetries + 1) + " times, keeping them for next refresh");
+        return false;
+    }
+
+    /**
+     * OTLP ExportMetricsServiceRequest in JSON encoding, series are grouped into gauges by metric name
+     */
+    static byte[] encode(List<Map.Entry<MetricID, Number>> series, long timestampMillis) throws IOException {
+        Map<String, List<Map.Entry<MetricID, Number>>> byName = new LinkedHashMap<>();
+        for (Map.Entry<MetricID, Number> entry : series) {
+            byName.computeIfAbsent(entry.getKey().getName(), name -> new ArrayList<>()).add(entry);
+        }
+        String timestamp = String.valueOf(timestampMillis * 1_000_000);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+             JsonGenerator generator = generatorFactory.createGenerator(gzip)) {
+            generator.writeStartObject()
+                    .writeStartArray("resourceMetrics")
+                    .writeStartObject()
+                    .writeStartObject("resource")
+                    .writeStartArray("attributes");
+            writeAttribute(generator, "service.name", "gh-exporter");
+            generator.writeEnd()
+                    .writeEnd()
+                    .writeStartArray("scopeMetrics")
+                    .writeStartObject()
+                    .writeStartObject("scope").write("name", "gh-exporter").writeEnd()
+                    .writeStartArray("metrics");
+            for (Map.Entry<String, List<Map.Entry<MetricID, Number>>> metric : byName.entrySet()) {
+                generator.writeStartObject()
+                        .write("name", metric.getKey())
+                        .writeStartObject("gauge")
+                        .writeStartArray("dataPoints");
+                for (Map.Entry<MetricID, Number> entry : metric.getValue()) {
+                    generator.writeStartObject().writeStartArray("attributes");
+                    entry.getKey().getTags().forEach((key, value) -> writeAttribute(generator, key, value));
+                    generator.writeEnd().write("timeUnixNano", timestamp);
+                    Number value = entry.getValue();
+                    if (value instanceof Double || value instanceof Float) {
+                        generator.write("asDouble", value.doubleValue());
+                    } else {
+                        // int64 values are strings in OTLP JSON encoding
+                        generator.write("asInt", String.valueOf(value.longValue()));
+                    }
+                    generator.writeEnd();
+                }
+                generator.writeEnd().writeEnd().writeEnd();
+            }
+            generator.writeEnd().writeEnd().writeEnd().writeEnd().writeEnd().writeEnd();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeAttribute(JsonGenerator generator, String key, String value) {
+        generator.writeStartObject()
+                .write("key", key)
+                .writeStartObject("value").write("stringValue", value).writeEnd()
+                .writeEnd();
+    }
+
+    public long getSentSeries() {
+        return sentSeries.sum();
+    }
+
+    public long getFailedRequests() {
+        return failedRequests.sum();
+    }
+
+    public long getDroppedSeries() {
+        return droppedSeries.sum();
+    }
+
+    public int getBufferedSeries() {
+        return bufferedSeries;
+    }
+}
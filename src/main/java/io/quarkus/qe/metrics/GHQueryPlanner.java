@@ -0,0 +1,221 @@
+package io.quarkus.qe.metrics;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricID;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Tag;
+import org.jboss.logging.Logger;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Predicate;
+
+/**
+ * Plans fetches of search based metrics, so the same search is issued once and derivable values are not searched at all
+ *
+ * Search queries are normalised (order and duplicates of qualifiers, state: and type: aliases of is:), metrics with
+ * the same normalised query share one fetch regardless of the metric or repository which registered them.
+ * Values which can be computed from other metrics are derived by the collector after every refresh.
+ */
+@ApplicationScoped
+public class GHQueryPlanner {
+
+    private static final Logger log = Logger.getLogger(GHQueryPlanner.class);
+
+    @ConfigProperty(name = "gh.query.planner.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @Inject
+    GHMetricsCollector collector;
+
+    @Inject
+    GHClient ghClient;
+
+    // normalised query -> series sharing the search
+    private final Map<String, Set<MetricID>> searches = new ConcurrentHashMap<>();
+    private final Set<MetricID> derived = ConcurrentHashMap.newKeySet();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Register gauge with the total count of issues and PRs matching the search query
+     */
+    public MetricID registerSearch(MetricRegistry registry, Metadata metadata, String query, Tag... tags) throws MalformedURLException {
+        String normalized = normalize(query);
+        URL url = new URL(ghClient.getApiUrl() + "/search/issues?per_page=1&q="
+                + normalized.replace(" ", "%20").replace("\"", "%22"));
+        log.debug("Registering metric for URL " + url.toExternalForm());
+        if (!enabled) {
+            collector.register(registry, metadata, GHEndpointFamily.SEARCH, () -> ghClient.extractCountFromJSON(url), tags);
+            return new MetricID(metadata.getName(), tags);
+        }
+        MetricID metricID = collector.registerGauge(registry, metadata, tags);
+        searches.computeIfAbsent(normalized, key -> {
+            Set<MetricID> shared = new CopyOnWriteArraySet<>();
+            collector.registerBatch(batchName(key), GHEndpointFamily.SEARCH, shared, () -> {
+                int count = ghClient.extractCountFromJSON(url);
+                Map<MetricID, Number> values = new HashMap<>();
+                shared.forEach(sharedMetricID -> values.put(sharedMetricID, count));
+                return values;
+            });
+            return shared;
+        }).add(metricID);
+        return metricID;
+    }
+
+    /**
+     * Register gauge computed as minuend - subtrahend, falls back to the search when the planner is disabled
+     */
+    public MetricID registerDifference(MetricRegistry registry, Metadata metadata, MetricID minuend, MetricID subtrahend,
+                                       String query, Tag... tags) throws MalformedURLException {
+        if (!enabled) {
+            return registerSearch(registry, metadata, query, tags);
+        }
+        MetricID metricID = collector.registerDerived(registry, metadata, values -> {
+            Number minuendValue = values.get(minuend);
+            Number subtrahendValue = values.get(subtrahend);
+            if (minuendValue == null || subtrahendValue == null) {
+                return null;
+            }
+            return Math.max(0, minuendValue.longValue() - subtrahendValue.longValue());
+        }, tags);
+        derived.add(metricID);
+        return metricID;
+    }
+
+    /**
+     * Forget planned searches of series matching the filter, the gauges are removed by the collector
+     */
+    public void unregister(Predicate<MetricID> filter) {
+        derived.removeIf(filter);
+        List<String> removed = new ArrayList<>();
+        searches.forEach((query, metricIDs) -> {
+            metricIDs.removeIf(filter);
+            if (metricIDs.isEmpty()) {
+                removed.add(query);
+            }
+        });
+        for (String query : removed) {
+            searches.remove(query);
+            collector.unregisterBatch(batchName(query));
+        }
+    }
+
+    /**
+     * Number of searches issued in every refresh
+     */
+    public int getSearchCount() {
+        return searches.size();
+    }
+
+    /**
+     * API calls saved in every refresh by shared searches
+     */
+    public int getSharedSavedCalls() {
+        int saved = 0;
+        for (Set<MetricID> metricIDs : searches.values()) {
+            saved += Math.max(0, metricIDs.size() - 1);
+        }
+        return saved;
+    }
+
+    /**
+     * API calls saved in every refresh by derived values
+     */
+    public int getDerivedSavedCalls() {
+        return derived.size();
+    }
+
+    public void logPlan() {
+        if (!enabled || (searches.isEmpty() && derived.isEmpty())) {
+            return;
+        }
+        int shared = getSharedSavedCalls();
+        int derivedCalls = getDerivedSavedCalls();
+        log.info("Query plan: " + searches.size() + " searches, " + shared + " saved by shared searches, "
+                + derivedCalls + " saved by derived values, " + (shared + derivedCalls) + " API calls saved per refresh");
+    }
+
+    private static String batchName(String query) {
+        return "search:" + query;
+    }
+
+    /**
+     * Canonical form of the query, qualifiers are sorted and joined by '+', quoted values are kept together
+     *
+     * Queries with boolean operators (AND, OR, NOT) or parentheses depend on the order of their terms, they are only
+     * joined by '+' in the original order, so they are shared only with exactly the same query.
+     */
+    static String normalize(String query) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        boolean quoted = false;
+        boolean ordered = false;
+        for (char c : query.trim().toCharArray()) {
+            if (c == '"') {
+                quoted = !quoted;
+            }
+            if (!quoted && (c == '+' || Character.isWhitespace(c))) {
+                ordered |= addToken(tokens, token.toString());
+                token.setLength(0);
+            } else {
+                ordered |= !quoted && (c == '(' || c == ')');
+                token.append(c);
+            }
+        }
+        ordered |= addToken(tokens, token.toString());
+        if (ordered) {
+            return String.join("+", tokens);
+        }
+        // terms of a query without operators are all required, so their order and repetition do not matter
+        Set<String> qualifiers = new TreeSet<>();
+        for (String qualifier : tokens) {
+            qualifiers.add(canonicalQualifier(qualifier));
+        }
+        return String.join("+", qualifiers);
+    }
+
+    /**
+     * Add non-empty token, returns true when it is a boolean operator
+     */
+    private static boolean addToken(List<String> tokens, String token) {
+        if (token.isEmpty()) {
+            return false;
+        }
+        tokens.add(token);
+        return token.equals("AND") || token.equals("OR") || token.equals("NOT");
+    }
+
+    private static String canonicalQualifier(String token) {
+        int colon = token.indexOf(':');
+        if (colon <= 0) {
+            return token;
+        }
+        String key = token.substring(0, colon).toLowerCase(Locale.ROOT);
+        String value = token.substring(colon + 1);
+        if (key.equals("state") || key.equals("type")) {
+            key = "is";
+        }
+        if (key.equals("is")) {
+            value = value.toLowerCase(Locale.ROOT);
+            if (value.equals("pull-request")) {
+                value = "pr";
+            }
+        }
+        return key + ":" + value;
+    }
+}
@@ -0,0 +1,26 @@
+package io.quarkus.qe.metrics;
+
+/**
+ * Request was not sent as the rate limit budget of given endpoint family is exhausted
+ */
+public class GHRateLimitExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final GHEndpointFamily family;
+    private final long resetInMillis;
+
+    public GHRateLimitExceededException(GHEndpointFamily family, long resetInMillis) {
+        super("Rate limit of " + family + " endpoints exhausted, reset in " + resetInMillis / 1000 + " s");
+        this.family = family;
+        this.resetInMillis = resetInMillis;
+    }
+
+    public GHEndpointFamily getFamily() {
+        return family;
+    }
+
+    public long getResetInMillis() {
+        return resetInMillis;
+    }
+}
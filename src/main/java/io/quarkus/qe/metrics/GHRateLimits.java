@@ -0,0 +1,167 @@
+package io.quarkus.qe.metrics;
+
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Rate limit budgets of GitHub API, tracked per {@link GHEndpointFamily}
+ *
+ * Values are captured passively from X-RateLimit-* headers of regular responses, no extra /rate_limit call is needed.
+ * Every request reserves one unit of the budget before it is sent, so parallel refreshes do not overshoot the limit.
+ * When the budget is exhausted the request waits for the window reset (up to maxWait) or is rejected.
+ * Requests issued within {@link #failFast(Supplier)} (fetches of the background refresh) never wait, they are rejected
+ * at once, so a sleeping fetch does not hold refresh permits shared with other endpoint families.
+ */
+public class GHRateLimits {
+
+    private static final Logger log = Logger.getLogger(GHRateLimits.class);
+
+    private static final ThreadLocal<Boolean> failFast = ThreadLocal.withInitial(() -> false);
+
+    private final Map<GHEndpointFamily, Bucket> buckets = new EnumMap<>(GHEndpointFamily.class);
+    private volatile Duration maxWait = Duration.ofMinutes(1);
+
+    public GHRateLimits() {
+        for (GHEndpointFamily family : GHEndpointFamily.values()) {
+            buckets.put(family, new Bucket());
+        }
+    }
+
+    public void setMaxWait(Duration maxWait) {
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * Update budget from response headers, X-RateLimit-Resource header takes precedence over family of the request
+     */
+    public void update(GHEndpointFamily family, Function<String, String> headers) {
+        String remaining = headers.apply("X-RateLimit-Remaining");
+        String limit = headers.apply("X-RateLimit-Limit");
+        String reset = headers.apply("X-RateLimit-Reset");
+        if (remaining == null || limit == null || reset == null) {
+            return;
+        }
+        String resource = headers.apply("X-RateLimit-Resource");
+        if ("search".equals(resource)) {
+            family = GHEndpointFamily.SEARCH;
+        } else if ("core".equals(resource)) {
+            family = GHEndpointFamily.CORE;
+        } else if ("graphql".equals(resource)) {
+            family = GHEndpointFamily.GRAPHQL;
+        } else if (resource != null) {
+            return;
+        }
+        try {
+            buckets.get(family).update(Integer.parseInt(limit), Integer.parseInt(remaining), Long.parseLong(reset) * 1000);
+        } catch (NumberFormatException e) {
+            log.debug("Unexpected rate limit headers " + limit + "/" + remaining + "/" + reset);
+        }
+    }
+
+    /**
+     * Reserve one request in the budget of given family, waits for the window reset when it is close enough
+     *
+     * @throws GHRateLimitExceededException when the budget is exhausted and reset is further than maxWait
+     *                                      or the request is issued within {@link #failFast(Supplier)}
+     */
+    public void acquire(GHEndpointFamily family) {
+        Bucket bucket = buckets.get(family);
+        long waitMillis;
+        while ((waitMillis = bucket.reserve()) > 0) {
+            if (failFast.get() || waitMillis > maxWait.toMillis()) {
+                throw new GHRateLimitExceededException(family, waitMillis);
+            }
+            log.debug("Rate limit of " + family + " exhausted, waiting " + waitMillis + " ms for reset");
+            try {
+                Thread.sleep(waitMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new GHRateLimitExceededException(family, waitMillis);
+            }
+        }
+    }
+
+    /**
+     * Whether requests of the current thread are rejected instead of waiting, to keep the mode on another thread
+     */
+    static boolean isFailFast() {
+        return failFast.get();
+    }
+
+    /**
+     * Run the action with requests rejected instead of waiting for the window reset
+     */
+    public static <T> T failFast(Supplier<T> action) {
+        boolean previous = failFast.get();
+        failFast.set(true);
+        try {
+            return action.get();
+        } finally {
+            failFast.set(previous);
+        }
+    }
+
+    /**
+     * Restore budget persisted by previous run, ignored when its window has already been reset
+     */
+    public void restore(GHEndpointFamily family, int limit, int remaining, long resetMillis) {
+        if (resetMillis > System.currentTimeMillis()) {
+            buckets.get(family).update(limit, remaining, resetMillis);
+        }
+    }
+
+    public int getRemaining(GHEndpointFamily family) {
+        return buckets.get(family).remaining;
+    }
+
+    public int getLimit(GHEndpointFamily family) {
+        return buckets.get(family).limit;
+    }
+
+    public long getResetMillis(GHEndpointFamily family) {
+        return buckets.get(family).resetMillis;
+    }
+
+    static class Bucket {
+        // -1 means no response has been seen yet and the budget is unknown
+        volatile int limit = -1;
+        volatile int remaining = -1;
+        volatile long resetMillis;
+
+        synchronized void update(int limit, int remaining, long resetMillis) {
+            // responses of parallel requests can arrive out of order, keep the lowest value within the same window
+            if (resetMillis == this.resetMillis && remaining > this.remaining && this.remaining >= 0) {
+                return;
+            }
+            this.limit = limit;
+            this.remaining = remaining;
+            this.resetMillis = resetMillis;
+        }
+
+        /**
+         * @return 0 when the request can be sent, otherwise number of milliseconds until the window reset
+         */
+        synchronized long reserve() {
+            long now = System.currentTimeMillis();
+            if (remaining < 0) {
+                return 0;
+            }
+            if (now >= resetMillis) {
+                // new window started, the budget is unknown until next response
+                remaining = -1;
+                return 0;
+            }
+            if (remaining > 0) {
+                remaining--;
+                return 0;
+            }
+            // small margin as the reset time has second precision
+            return resetMillis - now + 1000;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package io.quarkus.qe.metrics;
+
+import jakarta.inject.Inject;
+import jakarta.json.Json;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Readiness of the exporter for Kubernetes probes, 503 until metrics are registered and have values
+ */
+@Path("/gh-ready")
+public class GHReadinessResource {
+
+    @Inject
+    GitHubMetrics gitHubMetrics;
+
+    @Inject
+    GHMetricsCollector collector;
+
+    @GET
+    public Response ready() {
+        GitHubMetrics.StartupState state = gitHubMetrics.getStartupState();
+        String body = Json.createObjectBuilder()
+                .add("status", state == GitHubMetrics.StartupState.READY ? "UP" : "DOWN")
+                .add("state", state.name())
+                .add("repositories", gitHubMetrics.getRepositoryCount())
+                .add("series", collector.getSnapshot().size())
+                .add("refreshes", collector.getRefreshCount())
+                .add("startupMillis", gitHubMetrics.getStartupMillis())
+                .build()
+                .toString();
+        return Response.status(state == GitHubMetrics.StartupState.READY ? Response.Status.OK : Response.Status.SERVICE_UNAVAILABLE)
+                .entity(body)
+                .type(MediaType.APPLICATION_JSON)
+                .build();
+    }
+}
@@ -2,16 +2,20 @@ package io.quarkus.qe.metrics;
 
 import io.smallrye.metrics.ExtendedMetadataBuilder;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
-import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricID;
 import org.eclipse.microprofile.metrics.MetricRegistry;
 import org.eclipse.microprofile.metrics.MetricType;
 import org.eclipse.microprofile.metrics.Tag;
 import org.jboss.logging.Logger;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -22,12 +26,30 @@ import java.util.List;
  *
  * Operations like repository.getPullRequests(GHIssueState.OPEN).size() are too expensive from time and memory perspective.
  * Only the PRs count is needed, but the price involves fetching details and deserialization from JSON for all the PRs.
+ *
+ * Searches go through {@link GHQueryPlanner}, open issues are derived from BASE and open PRs metrics.
+ * With gh.index.enabled, label and state counts and last 24 hours activity are computed from {@link GHIssueIndex}.
+ * With gh.git.mirror.enabled, commits, contributors and tags are counted in {@link GHGitMirror}.
  */
 @ApplicationScoped
 public class GHRepositoryAdvancedMetrics {
 
     private static final Logger log = Logger.getLogger(GHRepositoryAdvancedMetrics.class);
-    private String ghToken;
+
+    @Inject
+    GHMetricsCollector collector;
+
+    @Inject
+    GHClient ghClient;
+
+    @Inject
+    GHQueryPlanner planner;
+
+    @Inject
+    GHIssueIndex index;
+
+    @Inject
+    GHGitMirror gitMirror;
 
     @ConfigProperty(name = "gh.label.question", defaultValue = "kind/question")
     String labelQuestion;
@@ -46,56 +68,93 @@ public class GHRepositoryAdvancedMetrics {
 
     String[] issueStates = {"open", "closed"};
 
-    public void initiateGH(String ghToken) {
-        this.ghToken = ghToken;
-    }
-
     public void ghAdvancedMetrics(MetricRegistry registry, String repositoryName, Tag... tags) {
         try {
-            URL contributorsURL = new URL("https://api.github.com/repos/" + repositoryName + "/contributors?per_page=1");
-            URL commitsURL = new URL("https://api.github.com/repos/" + repositoryName + "/commits?per_page=1");
-            URL tagsURL = new URL("https://api.github.com/repos/" + repositoryName + "/tags?per_page=1");
-
-            registerMetric("gh_repo_contributors", "Total number of contributors for given repository", contributorsURL, registry, tags);
-            registerMetric("gh_repo_commits", "Total number of commits for given repository", commitsURL, registry, tags);
-            registerMetric("gh_repo_tags", "Total number of tags/releases for given repository", tagsURL, registry, tags);
-
-            URL openIssuesURL = new URL("https://api.github.com/search/issues?q=repo:" + repositoryName + "+is:issue+is:open&per_page=1");
-            URL closedIssuesURL = new URL("https://api.github.com/search/issues?q=repo:" + repositoryName + "+is:issue+is:closed&per_page=1");
-
-            registerMetric("gh_repo_open_issues", "Total number of open issues for given repository", openIssuesURL, registry, tags);
-            registerMetric("gh_repo_closed_issues", "Total number of closed issues for given repository", closedIssuesURL, registry, tags);
+            URL commitsURL = new URL(ghClient.getApiUrl() + "/repos/" + repositoryName + "/commits?per_page=1");
+            URL tagsURL = new URL(ghClient.getApiUrl() + "/repos/" + repositoryName + "/tags?per_page=1");
+
+            ghContributorsMetric(registry, repositoryName, tags);
+            if (gitMirror.isEnabled()) {
+                gitMirror.register(registry, metadata("gh_repo_commits", "Total number of commits for given repository"),
+                        repositoryName, GHGitMirror.Mirror::getCommits, tags);
+                gitMirror.register(registry, metadata("gh_repo_tags", "Total number of tags/releases for given repository"),
+                        repositoryName, GHGitMirror.Mirror::getTags, tags);
+            } else {
+                registerMetric("gh_repo_commits", "Total number of commits for given repository", commitsURL, registry, tags);
+                registerMetric("gh_repo_tags", "Total number of tags/releases for given repository", tagsURL, registry, tags);
+            }
 
-            URL openPRsURL = new URL("https://api.github.com/repos/" + repositoryName + "/pulls?per_page=1");
-            URL closedPRsURL = new URL("https://api.github.com/repos/" + repositoryName + "/pulls?per_page=1&state=closed");
-            URL mergedPRsURL = new URL("https://api.github.com/search/issues?q=repo:" + repositoryName + "+is:pr+is:merged&per_page=1");
+            URL openPRsURL = new URL(ghClient.getApiUrl() + "/repos/" + repositoryName + "/pulls?per_page=1");
+            URL closedPRsURL = new URL(ghClient.getApiUrl() + "/repos/" + repositoryName + "/pulls?per_page=1&state=closed");
 
             registerMetric("gh_repo_open_prs", "Total number of open prs for given repository", openPRsURL, registry, tags);
             registerMetric("gh_repo_closed_prs", "Total number of closed prs for given repository", closedPRsURL, registry, tags);
-            registerMetric("gh_repo_merged_prs", "Total number of merged prs for given repository", mergedPRsURL, registry, tags);
+            registerSearchMetric("gh_repo_merged_prs", "Total number of merged prs for given repository",
+                    "repo:" + repositoryName + "+is:pr+is:merged", registry, tags);
+
+            // open_issues_count of the repository includes open PRs, ADVANCED level always registers BASE metrics too
+            planner.registerDifference(registry,
+                    metadata("gh_repo_open_issues", "Total number of open issues for given repository"),
+                    new MetricID("gh_repo_open_issues_and_prs", tags), new MetricID("gh_repo_open_prs", tags),
+                    "repo:" + repositoryName + "+is:issue+is:open", tags);
+            registerSearchMetric("gh_repo_closed_issues", "Total number of closed issues for given repository",
+                    "repo:" + repositoryName + "+is:issue+is:closed", registry, tags);
 
         } catch (MalformedURLException e) {
             log.error("Malformed URL", e);
         }
     }
 
-    public void ghVerboseMetrics(MetricRegistry registry, String repositoryName, Tag... tags) {
+    /**
+     * Contributors count is not available in GraphQL API, the metric is shared with GraphQL backend
+     */
+    public void ghContributorsMetric(MetricRegistry registry, String repositoryName, Tag... tags) {
+        if (gitMirror.isEnabled()) {
+            gitMirror.register(registry, metadata("gh_repo_contributors", "Total number of contributors for given repository"),
+                    repositoryName, GHGitMirror.Mirror::getContributors, tags);
+            return;
+        }
         try {
-            String[] issueLabels = {labelBug, labelEnhancement, labelEpic, labelProposal, labelQuestion};
+            URL contributorsURL = new URL(ghClient.getApiUrl() + "/repos/" + repositoryName + "/contributors?per_page=1");
+            registerMetric("gh_repo_contributors", "Total number of contributors for given repository", contributorsURL, registry, tags);
+        } catch (MalformedURLException e) {
+            log.error("Malformed URL", e);
+        }
+    }
 
-            for (String label : issueLabels) {
+    String[] issueLabels() {
+        return new String[]{labelBug, labelEnhancement, labelEpic, labelProposal, labelQuestion};
+    }
+
+    String[] closedOnlyLabels() {
+        return new String[]{labelInvalid, labelDuplicate};
+    }
+
+    public void ghVerboseMetrics(MetricRegistry registry, String repositoryName, Tag... tags) {
+        try {
+            for (String label : issueLabels()) {
                 for (String state : issueStates) {
                     // prometheus =>        gh_repo_open_issues{repo="quarkusio/quarkus",label!~"kind.*"}
                     registerMetric(registry, repositoryName, "issue", state, label, tags);
                 }
             }
 
-            String[] closedOnlyLabels = {labelInvalid, labelDuplicate};
-            for (String label : closedOnlyLabels) {
+            for (String label : closedOnlyLabels()) {
                 registerMetric(registry, repositoryName, "issue", "closed", label, tags);
                 registerMetric(registry, repositoryName, "pr", "closed", label, tags);
             }
 
+            ghLast24hMetrics(registry, repositoryName, tags);
+        } catch (MalformedURLException e) {
+            log.error("Malformed URL", e);
+        }
+    }
+
+    /**
+     * Search for activity in last 24 hours is not available in GraphQL API, the metrics are shared with GraphQL backend
+     */
+    public void ghLast24hMetrics(MetricRegistry registry, String repositoryName, Tag... tags) {
+        try {
             String[] issueActions = {"created", "closed"};
             String[] prActions = {"created", "closed", "merged"};
 
@@ -111,10 +170,20 @@ public class GHRepositoryAdvancedMetrics {
     }
 
     private void registerLast24hMetric(MetricRegistry registry, String repositoryName, String type, String action, Tag... tags) throws MalformedURLException {
-        String baseURL = "https://api.github.com/search/issues?per_page=1&q=repo:" + repositoryName +
+        if (index.isEnabled()) {
+            index.register(registry,
+                    metadata("gh_repo_" + action + "_" + type + "s_last_24h",
+                            "Total number of " + action + " " + type + "s for given repository in last 24 hours"),
+                    repositoryName,
+                    repositoryIndex -> repositoryIndex.countSince("pr".equals(type), action,
+                            Instant.now().minus(Duration.ofDays(1)).getEpochSecond()),
+                    tags);
+            return;
+        }
+        String baseURL = ghClient.getApiUrl() + "/search/issues?per_page=1&q=repo:" + repositoryName +
                 "+is:" + type + "+" + action + ":>";     // e.g. "+is:pr+created:>"
         log.debug("Registering metric for base URL " + baseURL);
-        registry.register(
+        collector.register(registry,
                 new ExtendedMetadataBuilder()
                         .withName("gh_repo_" + action + "_" + type + "s_last_24h")
                         .withType(MetricType.GAUGE)
@@ -122,14 +191,15 @@ public class GHRepositoryAdvancedMetrics {
                         .skipsScopeInOpenMetricsExportCompletely(true)
                         .prependsScopeToOpenMetricsName(false)
                         .build(),
-                (Gauge<Number>) () -> {
+                GHEndpointFamily.SEARCH,
+                () -> {
                     String timeSuffix = LocalDateTime.now(Clock.systemUTC()).minusDays(1).withNano(0).toString();
                     try {
                         log.debug(baseURL+timeSuffix);
-                        return GHUtils.extractCountFromJSON(ghToken, new URL(baseURL+timeSuffix));
+                        // the URL changes every second, its response would only push useful entries out of the cache
+                        return ghClient.extractUncachedCountFromJSON(new URL(baseURL+timeSuffix));
                     } catch (MalformedURLException e) {
-                        log.error("Unable to construct URL " + baseURL+timeSuffix, e);
-                        return 0;
+                        throw new IllegalStateException("Unable to construct URL " + baseURL+timeSuffix, e);
                     }
                 },
                 tags);
@@ -139,40 +209,38 @@ public class GHRepositoryAdvancedMetrics {
         List<Tag> tagsList = new ArrayList<>();
         tagsList.addAll(Arrays.asList(tags));
         tagsList.add(new Tag("label", label));
-        URL url = new URL("https://api.github.com/search/issues?q=repo:" + repositoryName +
-                "+is:" + type +
-                "+is:" + state +
-                "+label:" + label +
-                "&per_page=1");
-        registerMetric("gh_repo_" + state + "_" + type + "s",
+        if (index.isEnabled()) {
+            index.register(registry,
+                    metadata("gh_repo_" + state + "_" + type + "s", "Total number of " + state + " " + type + "s for given repository"),
+                    repositoryName,
+                    repositoryIndex -> repositoryIndex.count("pr".equals(type), "open".equals(state), label),
+                    tagsList.toArray(new Tag[0]));
+            return;
+        }
+        registerSearchMetric("gh_repo_" + state + "_" + type + "s",
                 "Total number of " + state + " " + type + "s for given repository",
-                url, registry, tagsList.toArray(new Tag[0]));
+                "repo:" + repositoryName + "+is:" + type + "+is:" + state + "+label:" + label,
+                registry, tagsList.toArray(new Tag[0]));
+    }
+
+    private void registerSearchMetric(String name, String description, String query, MetricRegistry registry, Tag... tags)
+            throws MalformedURLException {
+        planner.registerSearch(registry, metadata(name, description), query, tags);
+    }
+
+    private static Metadata metadata(String name, String description) {
+        return new ExtendedMetadataBuilder()
+                .withName(name)
+                .withType(MetricType.GAUGE)
+                .withDescription(description)
+                .skipsScopeInOpenMetricsExportCompletely(true)
+                .prependsScopeToOpenMetricsName(false)
+                .build();
     }
 
     private void registerMetric(String name, String description, URL url, MetricRegistry registry, Tag... tags) {
         log.debug("Registering metric for URL " + url.toExternalForm());
-        if (url.getPath().contains("/search/issues")) {
-            registry.register(
-                    new ExtendedMetadataBuilder()
-                            .withName(name)
-                            .withType(MetricType.GAUGE)
-                            .withDescription(description)
-                            .skipsScopeInOpenMetricsExportCompletely(true)
-                            .prependsScopeToOpenMetricsName(false)
-                            .build(),
-                    (Gauge<Number>) () -> GHUtils.extractCountFromJSON(ghToken, url),
-                    tags);
-        } else {
-            registry.register(
-                    new ExtendedMetadataBuilder()
-                            .withName(name)
-                            .withType(MetricType.GAUGE)
-                            .withDescription(description)
-                            .skipsScopeInOpenMetricsExportCompletely(true)
-                            .prependsScopeToOpenMetricsName(false)
-                            .build(),
-                    (Gauge<Number>) () -> GHUtils.extractCountFromLinkHeader(ghToken, url),
-                    tags);
-        }
+        collector.register(registry, metadata(name, description), GHEndpointFamily.CORE,
+                () -> ghClient.extractCountFromLinkHeader(url), tags);
     }
 }
@@ -2,16 +2,19 @@ package io.quarkus.qe.metrics;
 
 import io.quarkus.scheduler.Scheduled;
 import io.smallrye.metrics.ExtendedMetadataBuilder;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.metrics.Gauge;
 import org.eclipse.microprofile.metrics.MetricRegistry;
 import org.eclipse.microprofile.metrics.MetricType;
 import org.eclipse.microprofile.metrics.Tag;
 import org.jboss.logging.Logger;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
-import jakarta.json.JsonObject;
-import java.util.HashMap;
-import java.util.Map;
+import jakarta.inject.Inject;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
 
 /**
  * Metrics based on details available in GHRepository object
@@ -20,18 +23,22 @@ import java.util.Map;
 public class GHRepositoryBaseMetrics {
 
     private static final Logger log = Logger.getLogger(GHRepositoryBaseMetrics.class);
-    private String ghToken;
 
-    public void initiateGH(String ghToken) {
-        this.ghToken = ghToken;
-    }
+    @Inject
+    GHMetricsCollector collector;
 
-    public boolean isGHInitiated() {
-        return GHUtils.isTokenValid(ghToken);
-    }
+    @Inject
+    GHClient ghClient;
+
+    @ConfigProperty(name = "gh.repo.cache.clean.period")
+    Duration repositoryCacheTTL;
+    @ConfigProperty(name = "gh.repo.cache.jitter", defaultValue = "0.1")
+    double repositoryCacheJitter;
+    @ConfigProperty(name = "gh.repo.cache.max-size", defaultValue = "1000")
+    int repositoryCacheMaxSize;
 
     public void ghBaseMetrics(MetricRegistry registry, String repositoryName, Tag... tags) {
-        registry.register(
+        collector.register(registry,
                 new ExtendedMetadataBuilder()
                         .withName("gh_repo_stars")
                         .withType(MetricType.GAUGE)
@@ -39,10 +46,11 @@ public class GHRepositoryBaseMetrics {
                         .skipsScopeInOpenMetricsExportCompletely(true)
                         .prependsScopeToOpenMetricsName(false)
                         .build(),
-                (Gauge<Number>) () -> getGHRepository(repositoryName).getStargazersCount(),
+                GHEndpointFamily.CORE,
+                () -> getGHRepository(repositoryName).getStargazersCount(),
                 tags);
 
-        registry.register(
+        collector.register(registry,
                 new ExtendedMetadataBuilder()
                         .withName("gh_repo_open_issues_and_prs")
                         .withType(MetricType.GAUGE)
@@ -50,10 +58,11 @@ public class GHRepositoryBaseMetrics {
                         .skipsScopeInOpenMetricsExportCompletely(true)
                         .prependsScopeToOpenMetricsName(false)
                         .build(),
-                (Gauge<Number>) () -> getGHRepository(repositoryName).getOpenIssueCount(),
+                GHEndpointFamily.CORE,
+                () -> getGHRepository(repositoryName).getOpenIssueCount(),
                 tags);
 
-        registry.register(
+        collector.register(registry,
                 new ExtendedMetadataBuilder()
                         .withName("gh_repo_forks")
                         .withType(MetricType.GAUGE)
@@ -61,10 +70,11 @@ public class GHRepositoryBaseMetrics {
                         .skipsScopeInOpenMetricsExportCompletely(true)
                         .prependsScopeToOpenMetricsName(false)
                         .build(),
-                (Gauge<Number>) () -> getGHRepository(repositoryName).getForksCount(),
+                GHEndpointFamily.CORE,
+                () -> getGHRepository(repositoryName).getForksCount(),
                 tags);
 
-        registry.register(
+        collector.register(registry,
                 new ExtendedMetadataBuilder()
                         .withName("gh_repo_subscribers")
                         .withType(MetricType.GAUGE)
@@ -72,10 +82,11 @@ public class GHRepositoryBaseMetrics {
                         .skipsScopeInOpenMetricsExportCompletely(true)
                         .prependsScopeToOpenMetricsName(false)
                         .build(),
-                (Gauge<Number>) () -> getGHRepository(repositoryName).getSubscribersCount(),
+                GHEndpointFamily.CORE,
+                () -> getGHRepository(repositoryName).getSubscribersCount(),
                 tags);
 
-        registry.register(
+        collector.register(registry,
                 new ExtendedMetadataBuilder()
                         .withName("gh_repo_size")
                         .withType(MetricType.GAUGE)
@@ -83,10 +94,16 @@ public class GHRepositoryBaseMetrics {
                         .skipsScopeInOpenMetricsExportCompletely(true)
                         .prependsScopeToOpenMetricsName(false)
                         .build(),
-                (Gauge<Number>) () -> getGHRepository(repositoryName).getSize(),
+                GHEndpointFamily.CORE,
+                () -> getGHRepository(repositoryName).getSize(),
                 tags);
     }
 
+    /**
+     * Rate limit values are captured from headers of regular responses, no extra /rate_limit call is made
+     *
+     * gh_rate_remaining and gh_rate_search_remaining are sums over all valid tokens of the pool.
+     */
     public void ghRateLimitMetrics(MetricRegistry registry) {
         registry.register(
                 new ExtendedMetadataBuilder()
@@ -96,58 +113,105 @@ public class GHRepositoryBaseMetrics {
                         .skipsScopeInOpenMetricsExportCompletely(true)
                         .prependsScopeToOpenMetricsName(false)
                         .build(),
-                (Gauge<Number>) () -> getRemainingRateLimit()
+                (Gauge<Number>) () -> ghClient.getTokenPool().getRemaining(GHEndpointFamily.CORE)
         );
-    }
 
-    class GHRepository {
-        private final JsonObject rootJSON;
+        registry.register(
+                new ExtendedMetadataBuilder()
+                        .withName("gh_rate_search_remaining")
+                        .withType(MetricType.GAUGE)
+                        .withDescription("Number of Search API queries remaining in the current window")
+                        .skipsScopeInOpenMetricsExportCompletely(true)
+                        .prependsScopeToOpenMetricsName(false)
+                        .build(),
+                (Gauge<Number>) () -> ghClient.getTokenPool().getRemaining(GHEndpointFamily.SEARCH)
+        );
+
+        for (GHToken token : ghClient.getTokenPool().getConfiguredTokens()) {
+            for (GHEndpointFamily family : GHEndpointFamily.values()) {
+                Tag[] tags = {new Tag("token", token.getId()), new Tag("resource", family.name().toLowerCase())};
+                registry.register(
+                        new ExtendedMetadataBuilder()
+                                .withName("gh_rate_token_remaining")
+                                .withType(MetricType.GAUGE)
+                                .withDescription("Number of API queries remaining in the current window of given token, 0 for evicted tokens")
+                                .skipsScopeInOpenMetricsExportCompletely(true)
+                                .prependsScopeToOpenMetricsName(false)
+                                .build(),
+                        (Gauge<Number>) () -> ghClient.getTokenPool().getTokens().contains(token)
+                                ? Math.max(0, token.getRateLimits().getRemaining(family)) : 0,
+                        tags
+                );
+            }
+        }
+    }
 
-        public GHRepository(JsonObject rootJSON) {
-            this.rootJSON = rootJSON;
+    /**
+     * Only the counts are kept, not the whole ~6 kB JSON of the repository
+     */
+    static class GHRepository {
+        static final String[] FIELDS = {"stargazers_count", "open_issues_count", "forks_count", "subscribers_count", "size"};
+
+        private final int stargazersCount;
+        private final int openIssueCount;
+        private final int forksCount;
+        private final int subscribersCount;
+        private final int size;
+
+        GHRepository(int[] values) {
+            this.stargazersCount = values[0];
+            this.openIssueCount = values[1];
+            this.forksCount = values[2];
+            this.subscribersCount = values[3];
+            this.size = values[4];
         }
         public Number getStargazersCount() {
-            return rootJSON.getInt("stargazers_count");
+            return stargazersCount;
         }
         public Number getOpenIssueCount() {
-            return rootJSON.getInt("open_issues_count");
+            return openIssueCount;
         }
         public Number getForksCount() {
-            return rootJSON.getInt("forks_count");
+            return forksCount;
         }
         public Number getSubscribersCount() {
-            return rootJSON.getInt("subscribers_count");
+            return subscribersCount;
         }
         public Number getSize() {
-            return rootJSON.getInt("size");
+            return size;
         }
     }
 
-    public Number getRemainingRateLimit() {
-        JsonObject rootJSON = GHUtils.getJsonObject(ghToken, "https://api.github.com/rate_limit");
-        return rootJSON.getJsonObject("rate").getInt("remaining");
+    /**
+     * Details of repository are shared by the five base gauges, only one /repos request per repository is in flight
+     */
+    GHLoadingCache<GHRepository> repositoryCache;
+
+    @PostConstruct
+    void init() {
+        repositoryCache = new GHLoadingCache<>(this::getRepository, repositoryCacheTTL.toMillis(), repositoryCacheJitter,
+                repositoryCacheMaxSize);
+    }
+
+    public GHLoadingCache<GHRepository> getRepositoryCache() {
+        return repositoryCache;
     }
 
-    Map<String, GHRepository> repositoryMap = new HashMap<>();
     @Scheduled(every="{gh.repo.cache.clean.period}")
     public void cleanGHRepositoryMap() {
         log.debug("cleanGHRepositoryMap invoked");
-        if (repositoryMap.size() > 0) {
-            repositoryMap.clear();
-        }
+        repositoryCache.evictExpired();
     }
     private GHRepository getGHRepository(String name) {
-        GHRepository repository = repositoryMap.get(name);
-        if (repository == null) {
-            repository = getRepository(name);
-            repositoryMap.put(name, repository);
-        }
-        return repository;
+        return repositoryCache.get(name);
     }
 
     private GHRepository getRepository(String repositoryName) {
-        JsonObject rootJSON =
-                GHUtils.getJsonObject(ghToken, "https://api.github.com/repos/" + repositoryName);
-        return new GHRepository(rootJSON);
+        try {
+            return new GHRepository(ghClient.extractFieldsFromJSON(new URL(ghClient.getApiUrl() + "/repos/" + repositoryName),
+                    GHRepository.FIELDS));
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException("Malformed URL", e);
+        }
     }
 }
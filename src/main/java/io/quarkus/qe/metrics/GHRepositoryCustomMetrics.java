@@ -2,7 +2,7 @@ package io.quarkus.qe.metrics;
 
 import io.smallrye.metrics.ExtendedMetadataBuilder;
 import org.eclipse.microprofile.config.Config;
-import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.Metadata;
 import org.eclipse.microprofile.metrics.MetricRegistry;
 import org.eclipse.microprofile.metrics.MetricType;
 import org.eclipse.microprofile.metrics.Tag;
@@ -11,7 +11,6 @@ import org.jboss.logging.Logger;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import java.net.MalformedURLException;
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -25,24 +24,23 @@ import java.util.NoSuchElementException;
 public class GHRepositoryCustomMetrics {
 
     private static final Logger log = Logger.getLogger(GHRepositoryCustomMetrics.class);
-    private String ghToken;
 
     @Inject
     Config config;
 
-    public void initiateGH(String ghToken) {
-        this.ghToken = ghToken;
-    }
+    @Inject
+    GHQueryPlanner planner;
+
+    @Inject
+    GHIssueIndex index;
 
     public void ghCustomMetrics(MetricRegistry registry, String repositoryName, Tag... tags) {
         try {
             String[] openIssues = config.getValue("gh.open.issues", String[].class);
 
             for (String openIssuesQuery : openIssues) {
-                URL url = new URL("https://api.github.com/search/issues?per_page=1&" +
-                        "q=repo:" + repositoryName + "+is:issue+is:open+" + openIssuesQuery.trim());
                 registerMetric("gh_repo_open_issues", "Total number of open issues for given repository",
-                        url, registry, addLabelToTags(tags, openIssuesQuery.trim()));
+                        repositoryName, true, openIssuesQuery.trim(), registry, addLabelToTags(tags, openIssuesQuery.trim()));
             }
         } catch (NoSuchElementException ex) {
             log.info("Configuration gh.open.issues is not defined");
@@ -54,10 +52,8 @@ public class GHRepositoryCustomMetrics {
             String[] closedIssues = config.getValue("gh.closed.issues", String[].class);
 
             for (String closedIssuesQuery : closedIssues) {
-                URL url = new URL("https://api.github.com/search/issues?per_page=1&" +
-                        "q=repo:" + repositoryName + "+is:issue+is:closed+" + closedIssuesQuery.trim());
                 registerMetric("gh_repo_closed_issues", "Total number of closed issues for given repository",
-                        url, registry, addLabelToTags(tags, closedIssuesQuery.trim()));
+                        repositoryName, false, closedIssuesQuery.trim(), registry, addLabelToTags(tags, closedIssuesQuery.trim()));
             }
         } catch (NoSuchElementException ex) {
             log.info("Configuration gh.closed.issues is not defined");
@@ -73,18 +69,25 @@ public class GHRepositoryCustomMetrics {
         return tagsList.toArray(new Tag[0]);
     }
 
-    private void registerMetric(String name, String description, URL url, MetricRegistry registry, Tag... tags) {
-        log.debug("Registering metric for URL " + url.toExternalForm());
-        registry.register(
-                new ExtendedMetadataBuilder()
-                        .withName(name)
-                        .withType(MetricType.GAUGE)
-                        .withDescription(description)
-                        .skipsScopeInOpenMetricsExportCompletely(true)
-                        .prependsScopeToOpenMetricsName(false)
-                        .build(),
-                (Gauge<Number>) () -> GHUtils.extractCountFromJSON(ghToken, url),
-                tags);
+    /**
+     * Queries with label qualifiers only are counted from the issue index when enabled, others are searched
+     */
+    private void registerMetric(String name, String description, String repositoryName, boolean open, String query,
+                                MetricRegistry registry, Tag... tags) throws MalformedURLException {
+        Metadata metadata = new ExtendedMetadataBuilder()
+                .withName(name)
+                .withType(MetricType.GAUGE)
+                .withDescription(description)
+                .skipsScopeInOpenMetricsExportCompletely(true)
+                .prependsScopeToOpenMetricsName(false)
+                .build();
+        GHIssueIndex.LabelFilter filter = index.isEnabled() ? GHIssueIndex.LabelFilter.parse(query) : null;
+        if (filter != null) {
+            index.register(registry, metadata, repositoryName, repositoryIndex -> repositoryIndex.count(false, open, filter), tags);
+        } else {
+            planner.registerSearch(registry, metadata,
+                    "repo:" + repositoryName + "+is:issue+is:" + (open ? "open" : "closed") + "+" + query, tags);
+        }
     }
 
 }
@@ -0,0 +1,296 @@
+package io.quarkus.qe.metrics;
+
+import io.smallrye.metrics.ExtendedMetadataBuilder;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricID;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.Tag;
+import org.jboss.logging.Logger;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonValue;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Metrics fetched in batches via GitHub GraphQL API
+ *
+ * One query with aliases covers many counts for many repositories, so one HTTP round trip replaces dozens of REST
+ * and search calls. Values are mapped back onto the same gh_repo_* metric names and tags as REST backend uses.
+ * Counts not available in GraphQL API (contributors, activity in last 24 hours) are still fetched via REST.
+ */
+@ApplicationScoped
+public class GHRepositoryGraphQLMetrics {
+
+    private static final Logger log = Logger.getLogger(GHRepositoryGraphQLMetrics.class);
+    private static final String BATCH_PREFIX = "graphql-batch-";
+
+    @ConfigProperty(name = "gh.graphql.url")
+    Optional<String> graphqlUrl;
+    // GitHub limits number of connections (nodes) in one query, each requested totalCount is one connection
+    @ConfigProperty(name = "gh.graphql.batch.max-cost", defaultValue = "250")
+    int batchMaxCost;
+    @ConfigProperty(name = "gh.graphql.batch.max-repos", defaultValue = "50")
+    int batchMaxRepos;
+
+    @Inject
+    GHMetricsCollector collector;
+
+    @Inject
+    GHClient ghClient;
+
+    @Inject
+    GHRepositoryAdvancedMetrics ghRepositoryAdvancedMetrics;
+
+    private final Map<String, RepositoryQuery> repositories = new LinkedHashMap<>();
+    private int registeredBatches;
+
+    public void ghGraphQLMetrics(MetricRegistry registry, String repositoryName, GitHubMetrics.GHDetailsLevel detailsLevel, Tag... tags) {
+        RepositoryQuery repositoryQuery = repositoryQuery(repositoryName, detailsLevel, tags);
+        for (Count count : repositoryQuery.counts) {
+            collector.registerGauge(registry, count.metadata, count.metricID.getTagsAsArray());
+        }
+        synchronized (repositories) {
+            repositories.put(repositoryName, repositoryQuery);
+        }
+
+        if (detailsLevel == GitHubMetrics.GHDetailsLevel.ADVANCED || detailsLevel == GitHubMetrics.GHDetailsLevel.VERBOSE) {
+            ghRepositoryAdvancedMetrics.ghContributorsMetric(registry, repositoryName, tags);
+        }
+        if (detailsLevel == GitHubMetrics.GHDetailsLevel.VERBOSE) {
+            ghRepositoryAdvancedMetrics.ghLast24hMetrics(registry, repositoryName, tags);
+        }
+    }
+
+    /**
+     * Stop fetching given repository, batches are rebuilt by next {@link #registerBatches()}
+     */
+    public void removeRepository(String repositoryName) {
+        synchronized (repositories) {
+            repositories.remove(repositoryName);
+        }
+    }
+
+    /**
+     * Split registered repositories into batches respecting query cost limits and register them for refresh
+     */
+    public synchronized void registerBatches() {
+        List<List<RepositoryQuery>> batches = new ArrayList<>();
+        List<RepositoryQuery> batch = new ArrayList<>();
+        int batchCost = 0;
+        synchronized (repositories) {
+            for (RepositoryQuery repositoryQuery : repositories.values()) {
+                if (!batch.isEmpty() && (batchCost + repositoryQuery.cost() > batchMaxCost || batch.size() >= batchMaxRepos)) {
+                    batches.add(batch);
+                    batch = new ArrayList<>();
+                    batchCost = 0;
+                }
+                batch.add(repositoryQuery);
+                batchCost += repositoryQuery.cost();
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+
+        for (int i = 0; i < batches.size(); i++) {
+            List<RepositoryQuery> repositoryQueries = batches.get(i);
+            collector.registerBatch(BATCH_PREFIX + i, GHEndpointFamily.GRAPHQL, () -> fetchBatch(repositoryQueries));
+        }
+        for (int i = batches.size(); i < registeredBatches; i++) {
+            collector.unregisterBatch(BATCH_PREFIX + i);
+        }
+        registeredBatches = batches.size();
+        log.info("Registered " + batches.size() + " GraphQL batches for " + repositories.size() + " repositories");
+    }
+
+    RepositoryQuery repositoryQuery(String repositoryName, GitHubMetrics.GHDetailsLevel detailsLevel, Tag... tags) {
+        RepositoryQuery query = new RepositoryQuery(repositoryName);
+        query.add("gh_repo_stars", "Total number of Stars for given repository", tags,
+                "stargazerCount");
+        query.add("gh_repo_open_issues_and_prs", "Total number of open issues and PRs for given repository", tags,
+                "issues(states: OPEN) { totalCount }", "pullRequests(states: OPEN) { totalCount }");
+        query.add("gh_repo_forks", "Total number of forks for given repository", tags,
+                "forkCount");
+        query.add("gh_repo_subscribers", "Total number of watchers/subscribers for given repository", tags,
+                "watchers { totalCount }");
+        query.add("gh_repo_size", "Size in kB for given repository", tags,
+                "diskUsage");
+        if (detailsLevel == GitHubMetrics.GHDetailsLevel.BASE) {
+            return query;
+        }
+
+        query.add("gh_repo_commits", "Total number of commits for given repository", tags,
+                "defaultBranchRef { target { ... on Commit { history { totalCount } } } }");
+        query.add("gh_repo_tags", "Total number of tags/releases for given repository", tags,
+                "refs(refPrefix: \"refs/tags/\") { totalCount }");
+        query.add("gh_repo_open_issues", "Total number of open issues for given repository", tags,
+                "issues(states: OPEN) { totalCount }");
+        query.add("gh_repo_closed_issues", "Total number of closed issues for given repository", tags,
+                "issues(states: CLOSED) { totalCount }");
+        query.add("gh_repo_open_prs", "Total number of open prs for given repository", tags,
+                "pullRequests(states: OPEN) { totalCount }");
+        // REST API closed PRs include merged ones, GraphQL CLOSED state does not
+        query.add("gh_repo_closed_prs", "Total number of closed prs for given repository", tags,
+                "pullRequests(states: [CLOSED, MERGED]) { totalCount }");
+        query.add("gh_repo_merged_prs", "Total number of merged prs for given repository", tags,
+                "pullRequests(states: MERGED) { totalCount }");
+        if (detailsLevel != GitHubMetrics.GHDetailsLevel.VERBOSE) {
+            return query;
+        }
+
+        for (String label : ghRepositoryAdvancedMetrics.issueLabels()) {
+            query.add("gh_repo_open_issues", "Total number of open issues for given repository", addLabelToTags(tags, label),
+                    labelSelection(label, "issues(states: OPEN) { totalCount }"));
+            query.add("gh_repo_closed_issues", "Total number of closed issues for given repository", addLabelToTags(tags, label),
+                    labelSelection(label, "issues(states: CLOSED) { totalCount }"));
+        }
+        for (String label : ghRepositoryAdvancedMetrics.closedOnlyLabels()) {
+            query.add("gh_repo_closed_issues", "Total number of closed issues for given repository", addLabelToTags(tags, label),
+                    labelSelection(label, "issues(states: CLOSED) { totalCount }"));
+            query.add("gh_repo_closed_prs", "Total number of closed prs for given repository", addLabelToTags(tags, label),
+                    labelSelection(label, "pullRequests(states: [CLOSED, MERGED]) { totalCount }"));
+        }
+        return query;
+    }
+
+    Map<MetricID, Number> fetchBatch(List<RepositoryQuery> batch) {
+        String url = graphqlUrl.orElse(ghClient.getApiUrl() + "/graphql");
+        JsonObject data;
+        try {
+            data = ghClient.postGraphQL(new URL(url), buildQuery(batch));
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException("Malformed GraphQL URL " + url, e);
+        }
+        if (data == null) {
+            throw new IllegalStateException("GraphQL query for " + batch.size() + " repositories failed");
+        }
+
+        Map<MetricID, Number> values = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            RepositoryQuery repositoryQuery = batch.get(i);
+            JsonValue repositoryJSON = data.get("r" + i);
+            if (!(repositoryJSON instanceof JsonObject)) {
+                log.warn("No GraphQL data for repository " + repositoryQuery.repositoryName);
+                continue;
+            }
+            for (Count count : repositoryQuery.counts) {
+                long value = 0;
+                for (String alias : count.aliases) {
+                    value += extractCount(((JsonObject) repositoryJSON).get(alias));
+                }
+                values.put(count.metricID, value);
+            }
+        }
+        return values;
+    }
+
+    static String buildQuery(List<RepositoryQuery> batch) {
+        StringBuilder query = new StringBuilder("query {\n");
+        for (int i = 0; i < batch.size(); i++) {
+            RepositoryQuery repositoryQuery = batch.get(i);
+            String[] ownerAndName = repositoryQuery.repositoryName.split("/", 2);
+            query.append("  r").append(i).append(": repository(owner: ").append(quote(ownerAndName[0]))
+                    .append(", name: ").append(quote(ownerAndName.length > 1 ? ownerAndName[1] : "")).append(") {\n");
+            repositoryQuery.selections.forEach((selection, alias) ->
+                    query.append("    ").append(alias).append(": ").append(selection).append('\n'));
+            query.append("  }\n");
+        }
+        return query.append("}").toString();
+    }
+
+    /**
+     * Count is either a number or the first totalCount found in nested objects, missing label or empty repository
+     * gives null which means 0
+     */
+    static long extractCount(JsonValue value) {
+        if (value instanceof JsonNumber) {
+            return ((JsonNumber) value).longValue();
+        }
+        if (value instanceof JsonObject) {
+            JsonObject object = (JsonObject) value;
+            if (object.get("totalCount") instanceof JsonNumber) {
+                return object.getJsonNumber("totalCount").longValue();
+            }
+            for (JsonValue nested : object.values()) {
+                long count = extractCount(nested);
+                if (count > 0) {
+                    return count;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static String labelSelection(String label, String selection) {
+        return "label(name: " + quote(label) + ") { " + selection + " }";
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static Tag[] addLabelToTags(Tag[] originalTags, String label) {
+        List<Tag> tagsList = new ArrayList<>(Arrays.asList(originalTags));
+        tagsList.add(new Tag("label", label));
+        return tagsList.toArray(new Tag[0]);
+    }
+
+    static class RepositoryQuery {
+        final String repositoryName;
+        // identical selections are requested only once per repository
+        final Map<String, String> selections = new LinkedHashMap<>();
+        final List<Count> counts = new ArrayList<>();
+
+        RepositoryQuery(String repositoryName) {
+            this.repositoryName = repositoryName;
+        }
+
+        void add(String name, String description, Tag[] tags, String... selectionsToSum) {
+            List<String> aliases = new ArrayList<>();
+            for (String selection : selectionsToSum) {
+                aliases.add(selections.computeIfAbsent(selection, s -> "c" + selections.size()));
+            }
+            Metadata metadata = new ExtendedMetadataBuilder()
+                    .withName(name)
+                    .withType(MetricType.GAUGE)
+                    .withDescription(description)
+                    .skipsScopeInOpenMetricsExportCompletely(true)
+                    .prependsScopeToOpenMetricsName(false)
+                    .build();
+            counts.add(new Count(new MetricID(name, tags), metadata, aliases));
+        }
+
+        int cost() {
+            int cost = 0;
+            for (String selection : selections.keySet()) {
+                cost += selection.split("\\{", -1).length - 1;
+            }
+            return Math.max(1, cost);
+        }
+    }
+
+    static class Count {
+        final MetricID metricID;
+        final Metadata metadata;
+        final List<String> aliases;
+
+        Count(MetricID metricID, Metadata metadata, List<String> aliases) {
+            this.metricID = metricID;
+            this.metadata = metadata;
+            this.aliases = aliases;
+        }
+    }
+}
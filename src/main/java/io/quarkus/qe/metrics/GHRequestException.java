@@ -0,0 +1,33 @@
+package io.quarkus.qe.metrics;
+
+/**
+ * Request to GitHub failed or was answered with unexpected status, callers keep their last known value
+ */
+public class GHRequestException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final GHEndpointFamily family;
+    // -1 when no response was received
+    private final int statusCode;
+
+    public GHRequestException(GHEndpointFamily family, int statusCode, String message) {
+        super(message);
+        this.family = family;
+        this.statusCode = statusCode;
+    }
+
+    public GHRequestException(GHEndpointFamily family, String message, Throwable cause) {
+        super(message, cause);
+        this.family = family;
+        this.statusCode = -1;
+    }
+
+    public GHEndpointFamily getFamily() {
+        return family;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
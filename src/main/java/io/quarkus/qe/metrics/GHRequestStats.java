@@ -0,0 +1,143 @@
+package io.quarkus.qe.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of requests sent to GitHub, kept per {@link GHEndpointFamily}
+ *
+ * Latency is the time until response headers are received, it is counted in cumulative buckets like Prometheus
+ * histogram, so quantiles can be computed by histogram_quantile() over the exported buckets.
+ */
+public class GHRequestStats {
+
+    static final double[] LATENCY_BUCKETS_SECONDS = {0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30};
+    // status codes interesting for tuning, all other codes are counted by their class
+    static final List<String> STATUSES = List.of("200", "304", "401", "403", "404", "422", "429", "2xx", "4xx", "5xx", "error");
+
+    private final Map<GHEndpointFamily, Family> families = new EnumMap<>(GHEndpointFamily.class);
+
+    public GHRequestStats() {
+        for (GHEndpointFamily family : GHEndpointFamily.values()) {
+            families.put(family, new Family());
+        }
+    }
+
+    /**
+     * @return start time to be passed to {@link #completed}
+     */
+    public long started(GHEndpointFamily family) {
+        families.get(family).inFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * @param status HTTP status code, or -1 when no response was received
+     */
+    public void completed(GHEndpointFamily family, long startNanos, int status) {
+        Family stats = families.get(family);
+        stats.inFlight.decrementAndGet();
+        long nanos = System.nanoTime() - startNanos;
+        stats.count.increment();
+        stats.sumNanos.add(nanos);
+        double seconds = nanos / 1e9;
+        for (int i = 0; i < LATENCY_BUCKETS_SECONDS.length; i++) {
+            if (seconds <= LATENCY_BUCKETS_SECONDS[i]) {
+                stats.buckets[i].increment();
+            }
+        }
+        stats.statuses[STATUSES.indexOf(statusLabel(status))].increment();
+    }
+
+    static String statusLabel(int status) {
+        if (status < 0) {
+            return "error";
+        }
+        String code = String.valueOf(status);
+        if (STATUSES.contains(code)) {
+            return code;
+        }
+        return status >= 500 ? "5xx" : status >= 400 ? "4xx" : "2xx";
+    }
+
+    public void addBytesRead(GHEndpointFamily family, long bytes) {
+        families.get(family).bytesRead.add(bytes);
+    }
+
+    /**
+     * Wrap response body to count bytes read from it
+     */
+    public InputStream counting(GHEndpointFamily family, InputStream body) {
+        LongAdder bytesRead = families.get(family).bytesRead;
+        return new FilterInputStream(body) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    bytesRead.increment();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read > 0) {
+                    bytesRead.add(read);
+                }
+                return read;
+            }
+        };
+    }
+
+    public int getInFlight(GHEndpointFamily family) {
+        return families.get(family).inFlight.get();
+    }
+
+    public long getCount(GHEndpointFamily family) {
+        return families.get(family).count.sum();
+    }
+
+    public double getSumSeconds(GHEndpointFamily family) {
+        return families.get(family).sumNanos.sum() / 1e9;
+    }
+
+    /**
+     * Number of requests which took at most LATENCY_BUCKETS_SECONDS[bucket] seconds
+     */
+    public long getBucketCount(GHEndpointFamily family, int bucket) {
+        return families.get(family).buckets[bucket].sum();
+    }
+
+    public long getStatusCount(GHEndpointFamily family, String status) {
+        return families.get(family).statuses[STATUSES.indexOf(status)].sum();
+    }
+
+    public long getBytesRead(GHEndpointFamily family) {
+        return families.get(family).bytesRead.sum();
+    }
+
+    private static class Family {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final LongAdder count = new LongAdder();
+        final LongAdder sumNanos = new LongAdder();
+        final LongAdder bytesRead = new LongAdder();
+        final LongAdder[] buckets = new LongAdder[LATENCY_BUCKETS_SECONDS.length];
+        final LongAdder[] statuses = new LongAdder[STATUSES.size()];
+
+        Family() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+            for (int i = 0; i < statuses.length; i++) {
+                statuses[i] = new LongAdder();
+            }
+        }
+    }
+}
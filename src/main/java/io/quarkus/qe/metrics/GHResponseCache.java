@@ -0,0 +1,137 @@
+package io.quarkus.qe.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Cache of values extracted from GitHub responses, keyed by URL
+ *
+ * ETag / Last-Modified of the response is stored together with the extracted value and sent back as
+ * If-None-Match / If-Modified-Since. GitHub answers with 304 when nothing has changed, such response does not count
+ * against the rate limit and the cached value is reused.
+ *
+ * The cache is bounded, least recently used entries are evicted first.
+ */
+public class GHResponseCache {
+
+    private final Map<String, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile int maxEntries;
+
+    public GHResponseCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > GHResponseCache.this.maxEntries;
+            }
+        };
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Add conditional headers for given URL, nothing is added when there is no usable cached entry
+     */
+    public void addConditionalHeaders(String url, BiConsumer<String, String> setHeader) {
+        Entry entry = getEntry(url);
+        if (entry == null || System.currentTimeMillis() > entry.revalidateUntil) {
+            return;
+        }
+        if (entry.etag != null) {
+            setHeader.accept("If-None-Match", entry.etag);
+        }
+        if (entry.lastModified != null) {
+            setHeader.accept("If-Modified-Since", entry.lastModified);
+        }
+    }
+
+    /**
+     * Value cached for given URL, to be used when GitHub answers with 304 Not Modified
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T notModified(String url) {
+        Entry entry = getEntry(url);
+        if (entry == null) {
+            return null;
+        }
+        hits.increment();
+        return (T) entry.value;
+    }
+
+    /**
+     * Store value extracted from full response
+     *
+     * @param maxAgeMillis how long the entry can be revalidated with conditional request, needed for values which are
+     *                     not part of response body (e.g. Link header) and are not covered by ETag
+     */
+    public void put(String url, String etag, String lastModified, Object value, long maxAgeMillis) {
+        misses.increment();
+        if (etag == null && lastModified == null) {
+            return;
+        }
+        long revalidateUntil = maxAgeMillis == Long.MAX_VALUE ? Long.MAX_VALUE : System.currentTimeMillis() + maxAgeMillis;
+        synchronized (entries) {
+            entries.put(url, new Entry(etag, lastModified, value, revalidateUntil));
+        }
+    }
+
+    /**
+     * Entries in least recently used order
+     */
+    public void forEach(BiConsumer<String, Entry> consumer) {
+        Map<String, Entry> copy;
+        synchronized (entries) {
+            copy = new LinkedHashMap<>(entries);
+        }
+        copy.forEach(consumer);
+    }
+
+    /**
+     * Put back entry persisted by previous run, statistics are not affected
+     */
+    public void restore(String url, Entry entry) {
+        synchronized (entries) {
+            entries.putIfAbsent(url, entry);
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private Entry getEntry(String url) {
+        synchronized (entries) {
+            return entries.get(url);
+        }
+    }
+
+    static class Entry {
+        final String etag;
+        final String lastModified;
+        final Object value;
+        final long revalidateUntil;
+
+        Entry(String etag, String lastModified, Object value, long revalidateUntil) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.value = value;
+            this.revalidateUntil = revalidateUntil;
+        }
+    }
+}
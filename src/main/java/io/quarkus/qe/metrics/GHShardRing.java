@@ -0,0 +1,49 @@
+package io.quarkus.qe.metrics;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent hash ring assigning repositories to exporter replicas
+ *
+ * Every node is placed on the ring at many points (virtual nodes), a repository belongs to the first node point
+ * following the hash of its name. Adding or removing a node moves only repositories between that node and the others,
+ * roughly 1/N of all repositories.
+ */
+public class GHShardRing {
+
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+
+    public GHShardRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("At least one node is required");
+        }
+        for (String node : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(node + "#" + i), node);
+            }
+        }
+    }
+
+    public String nodeOf(String repositoryName) {
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(repositoryName));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    static long hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xff);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
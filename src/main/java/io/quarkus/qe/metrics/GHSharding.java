@@ -0,0 +1,66 @@
+package io.quarkus.qe.metrics;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Selection of repositories tracked by this replica when the exporter runs as several shards
+ *
+ * Shards are either numbered (gh.shard.index out of gh.shard.count) or named by gh.shard.peers with the name of this
+ * replica in gh.shard.self (e.g. pod names of a StatefulSet). Repositories are assigned by {@link GHShardRing}, so
+ * changing the number of replicas moves only a minimal number of repositories between them.
+ */
+@ApplicationScoped
+public class GHSharding {
+
+    private static final Logger log = Logger.getLogger(GHSharding.class);
+
+    @ConfigProperty(name = "gh.shard.count", defaultValue = "1")
+    int shardCount;
+    @ConfigProperty(name = "gh.shard.index", defaultValue = "0")
+    int shardIndex;
+    @ConfigProperty(name = "gh.shard.peers")
+    Optional<List<String>> peers;
+    @ConfigProperty(name = "gh.shard.self")
+    Optional<String> self;
+    @ConfigProperty(name = "gh.shard.virtual-nodes", defaultValue = "128")
+    int virtualNodes;
+
+    private GHShardRing ring;
+    private String node;
+
+    @PostConstruct
+    void init() {
+        List<String> nodes = new ArrayList<>();
+        if (peers.isPresent() && !peers.get().isEmpty()) {
+            peers.get().forEach(peer -> nodes.add(peer.trim()));
+            node = self.map(String::trim)
+                    .orElseThrow(() -> new IllegalStateException("gh.shard.self is required when gh.shard.peers is set"));
+            if (!nodes.contains(node)) {
+                throw new IllegalStateException("gh.shard.self " + node + " is not one of gh.shard.peers " + nodes);
+            }
+        } else {
+            if (shardIndex < 0 || shardIndex >= shardCount) {
+                throw new IllegalStateException("gh.shard.index must be between 0 and gh.shard.count - 1");
+            }
+            for (int i = 0; i < shardCount; i++) {
+                nodes.add("shard-" + i);
+            }
+            node = "shard-" + shardIndex;
+        }
+        if (nodes.size() > 1) {
+            ring = new GHShardRing(nodes, virtualNodes);
+            log.info("Running as " + node + " of " + nodes.size() + " shards");
+        }
+    }
+
+    public boolean owns(String repositoryName) {
+        return ring == null || node.equals(ring.nodeOf(repositoryName));
+    }
+}
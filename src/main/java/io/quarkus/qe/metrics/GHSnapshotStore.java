@@ -0,0 +1,258 @@
+package io.quarkus.qe.metrics;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricID;
+import org.eclipse.microprofile.metrics.Tag;
+import org.jboss.logging.Logger;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Last known metric values, cached responses and rate limit budgets persisted on local disk
+ *
+ * The file is rewritten after every refresh and loaded on startup, so the first scrape after restart serves
+ * values of the previous run instead of zeros, and refreshes revalidate cached responses with conditional requests
+ * instead of fetching everything again.
+ *
+ * The file is written to a temporary file first and moved over the previous one, so a crash never leaves it half written.
+ */
+@ApplicationScoped
+public class GHSnapshotStore {
+
+    private static final Logger log = Logger.getLogger(GHSnapshotStore.class);
+    private static final int MAGIC = 0x47484D53;
+    private static final int VERSION = 2;
+
+    private static final byte LONG_VALUE = 'L';
+    private static final byte DOUBLE_VALUE = 'D';
+    private static final byte INT_ARRAY_VALUE = 'A';
+
+    @ConfigProperty(name = "gh.snapshot.path")
+    Optional<String> snapshotPath;
+
+    @Inject
+    GHMetricsCollector collector;
+
+    @Inject
+    GHClient ghClient;
+
+    /**
+     * Load the snapshot of previous run and persist every following refresh, does nothing when gh.snapshot.path is not set
+     */
+    public void init() {
+        if (snapshotPath.isEmpty()) {
+            return;
+        }
+        Path path = Paths.get(snapshotPath.get());
+        if (Files.exists(path)) {
+            try {
+                load(path);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Unable to load snapshot from " + path + ", starting with empty values", e);
+            }
+        }
+        collector.addRefreshListener(values -> {
+            try {
+                save(path);
+            } catch (IOException e) {
+                log.error("Unable to save snapshot to " + path, e);
+            }
+        });
+    }
+
+    void save(Path path) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path tmp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeValues(out, collector.getSnapshot());
+                writeRateLimits(out, ghClient.getTokenPool());
+                writeResponses(out, ghClient.getResponseCache());
+            }
+            try {
+                Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    void load(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                log.warn("Snapshot " + path + " has unknown format, ignoring it");
+                return;
+            }
+            Map<MetricID, Number> values = readValues(in);
+            int rateLimits = readRateLimits(in, ghClient.getTokenPool());
+            int responses = readResponses(in, ghClient.getResponseCache());
+            collector.restore(values);
+            log.info("Loaded " + values.size() + " metric values, " + rateLimits + " rate limits and "
+                    + responses + " cached responses from " + path);
+        }
+    }
+
+    private static void writeValues(DataOutputStream out, Map<MetricID, Number> values) throws IOException {
+        out.writeInt(values.size());
+        for (Map.Entry<MetricID, Number> entry : values.entrySet()) {
+            MetricID metricID = entry.getKey();
+            out.writeUTF(metricID.getName());
+            Map<String, String> tags = metricID.getTags();
+            out.writeShort(tags.size());
+            for (Map.Entry<String, String> tag : tags.entrySet()) {
+                out.writeUTF(tag.getKey());
+                out.writeUTF(tag.getValue());
+            }
+            Number value = entry.getValue();
+            if (value instanceof Double || value instanceof Float) {
+                out.writeByte(DOUBLE_VALUE);
+                out.writeDouble(value.doubleValue());
+            } else {
+                out.writeByte(LONG_VALUE);
+                out.writeLong(value.longValue());
+            }
+        }
+    }
+
+    private static Map<MetricID, Number> readValues(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        Map<MetricID, Number> values = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            String name = in.readUTF();
+            List<Tag> tags = new ArrayList<>();
+            int tagCount = in.readShort();
+            for (int t = 0; t < tagCount; t++) {
+                tags.add(new Tag(in.readUTF(), in.readUTF()));
+            }
+            Number value = in.readByte() == DOUBLE_VALUE ? (Number) in.readDouble() : (Number) in.readLong();
+            values.put(new MetricID(name, tags.toArray(new Tag[0])), value);
+        }
+        return values;
+    }
+
+    /**
+     * Budgets are stored per token id, tokens no longer configured are skipped on load
+     */
+    private static void writeRateLimits(DataOutputStream out, GHTokenPool tokenPool) throws IOException {
+        List<GHToken> tokens = tokenPool.getConfiguredTokens();
+        GHEndpointFamily[] families = GHEndpointFamily.values();
+        out.writeShort(tokens.size());
+        for (GHToken token : tokens) {
+            out.writeUTF(token.getId());
+            out.writeByte(families.length);
+            for (GHEndpointFamily family : families) {
+                GHRateLimits rateLimits = token.getRateLimits();
+                out.writeUTF(family.name());
+                out.writeInt(rateLimits.getLimit(family));
+                out.writeInt(rateLimits.getRemaining(family));
+                out.writeLong(rateLimits.getResetMillis(family));
+            }
+        }
+    }
+
+    private static int readRateLimits(DataInputStream in, GHTokenPool tokenPool) throws IOException {
+        int restored = 0;
+        int tokens = in.readShort();
+        for (int t = 0; t < tokens; t++) {
+            GHToken token = tokenPool.findById(in.readUTF());
+            int size = in.readByte();
+            for (int i = 0; i < size; i++) {
+                String family = in.readUTF();
+                int limit = in.readInt();
+                int remaining = in.readInt();
+                long resetMillis = in.readLong();
+                if (token != null && remaining >= 0 && resetMillis > System.currentTimeMillis()) {
+                    token.getRateLimits().restore(GHEndpointFamily.valueOf(family), limit, remaining, resetMillis);
+                    restored++;
+                }
+            }
+        }
+        return restored;
+    }
+
+    /**
+     * Only values extracted as counts are persisted, other cached values are fetched again
+     */
+    private static void writeResponses(DataOutputStream out, GHResponseCache responseCache) throws IOException {
+        List<Map.Entry<String, GHResponseCache.Entry>> entries = new ArrayList<>();
+        responseCache.forEach((url, entry) -> {
+            if (entry.value instanceof Number || entry.value instanceof int[]) {
+                entries.add(Map.entry(url, entry));
+            }
+        });
+        out.writeInt(entries.size());
+        for (Map.Entry<String, GHResponseCache.Entry> cached : entries) {
+            GHResponseCache.Entry entry = cached.getValue();
+            out.writeUTF(cached.getKey());
+            writeNullableUTF(out, entry.etag);
+            writeNullableUTF(out, entry.lastModified);
+            out.writeLong(entry.revalidateUntil);
+            if (entry.value instanceof int[]) {
+                int[] array = (int[]) entry.value;
+                out.writeByte(INT_ARRAY_VALUE);
+                out.writeShort(array.length);
+                for (int value : array) {
+                    out.writeInt(value);
+                }
+            } else {
+                out.writeByte(LONG_VALUE);
+                out.writeLong(((Number) entry.value).longValue());
+            }
+        }
+    }
+
+    private static int readResponses(DataInputStream in, GHResponseCache responseCache) throws IOException {
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            String url = in.readUTF();
+            String etag = readNullableUTF(in);
+            String lastModified = readNullableUTF(in);
+            long revalidateUntil = in.readLong();
+            Object value;
+            if (in.readByte() == INT_ARRAY_VALUE) {
+                int[] array = new int[in.readShort()];
+                for (int v = 0; v < array.length; v++) {
+                    array[v] = in.readInt();
+                }
+                value = array;
+            } else {
+                // counts are extracted as int
+                value = (int) in.readLong();
+            }
+            responseCache.restore(url, new GHResponseCache.Entry(etag, lastModified, value, revalidateUntil));
+        }
+        return size;
+    }
+
+    private static void writeNullableUTF(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableUTF(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
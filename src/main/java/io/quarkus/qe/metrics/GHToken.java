@@ -0,0 +1,56 @@
+package io.quarkus.qe.metrics;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * GitHub token together with rate limit budgets of its account
+ *
+ * The id is used in logs and metrics instead of the token value.
+ */
+public class GHToken {
+
+    private final String id;
+    private final String value;
+    private final GHRateLimits rateLimits = new GHRateLimits();
+
+    public GHToken(String value) {
+        this(idOf(value), value);
+    }
+
+    protected GHToken(String id, String value) {
+        this.id = id;
+        this.value = value;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public GHRateLimits getRateLimits() {
+        return rateLimits;
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+
+    /**
+     * Short hash of the token, stable across restarts and safe to expose
+     */
+    static String idOf(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return "token-" + HexFormat.of().formatHex(hash, 0, 4);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package io.quarkus.qe.metrics;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+/**
+ * Pool of GitHub tokens, every request is routed to the token with the most remaining budget of its endpoint family
+ *
+ * Tokens are taken from gh.token (comma separated list) and from installations of GitHub App configured by gh.app.*.
+ * Tokens rejected by GitHub are evicted from the pool.
+ */
+@ApplicationScoped
+public class GHTokenPool {
+
+    private static final Logger log = Logger.getLogger(GHTokenPool.class);
+
+    @ConfigProperty(name = "gh.token")
+    List<String> ghTokens;
+    @ConfigProperty(name = "gh.app.id")
+    Optional<String> appId;
+    // path to PEM file with private key of the App
+    @ConfigProperty(name = "gh.app.private-key")
+    Optional<String> appPrivateKey;
+    @ConfigProperty(name = "gh.app.installation-ids")
+    Optional<List<String>> appInstallationIds;
+    @ConfigProperty(name = "gh.api.url", defaultValue = "https://api.github.com")
+    String apiUrl;
+    @ConfigProperty(name = "gh.rate.max-wait", defaultValue = "90s")
+    Duration rateLimitMaxWait;
+
+    private final List<GHToken> tokens = new CopyOnWriteArrayList<>();
+    // all configured tokens including evicted ones, metrics keep reporting them
+    private final List<GHToken> configuredTokens = new ArrayList<>();
+
+    @PostConstruct
+    void init() {
+        for (String value : new LinkedHashSet<>(ghTokens)) {
+            if (!value.isBlank()) {
+                add(new GHToken(value.trim()));
+            }
+        }
+        if (appId.isPresent() && appPrivateKey.isPresent() && appInstallationIds.isPresent()) {
+            PrivateKey privateKey;
+            try {
+                privateKey = GHAppToken.readPrivateKey(Files.readString(Paths.get(appPrivateKey.get())));
+            } catch (IOException | GeneralSecurityException e) {
+                throw new IllegalStateException("Unable to read private key of GitHub App from " + appPrivateKey.get(), e);
+            }
+            HttpClient httpClient = HttpClient.newHttpClient();
+            String baseUrl = apiUrl.endsWith("/") ? apiUrl.substring(0, apiUrl.length() - 1) : apiUrl;
+            for (String installationId : appInstallationIds.get()) {
+                add(new GHAppToken(baseUrl, appId.get(), installationId.trim(), privateKey, httpClient));
+            }
+        }
+    }
+
+    private void add(GHToken token) {
+        token.getRateLimits().setMaxWait(rateLimitMaxWait);
+        tokens.add(token);
+        configuredTokens.add(token);
+    }
+
+    /**
+     * Evict tokens failing the validation, returns false when no valid token is left
+     */
+    public boolean validate(Predicate<GHToken> isValid) {
+        for (GHToken token : tokens) {
+            if (!isValid.test(token)) {
+                evict(token);
+            }
+        }
+        log.info(tokens.size() + " valid GitHub tokens in the pool");
+        return !tokens.isEmpty();
+    }
+
+    public void evict(GHToken token) {
+        if (tokens.remove(token)) {
+            log.error("GitHub token " + token.getId() + " is not valid, evicting it from the pool");
+        }
+    }
+
+    /**
+     * Select token with the most remaining budget and reserve one request in it
+     *
+     * @throws GHRateLimitExceededException when budgets of all tokens are exhausted
+     */
+    public GHToken acquire(GHEndpointFamily family) {
+        GHToken best = null;
+        long bestRemaining = Long.MIN_VALUE;
+        long bestReset = Long.MAX_VALUE;
+        for (GHToken token : tokens) {
+            int remaining = token.getRateLimits().getRemaining(family);
+            // unknown budget means no request was sent in the current window yet
+            long budget = remaining < 0 ? Long.MAX_VALUE : remaining;
+            long reset = token.getRateLimits().getResetMillis(family);
+            // when all budgets are exhausted, the token with the closest reset is used
+            if (budget > bestRemaining || (budget == bestRemaining && reset < bestReset)) {
+                best = token;
+                bestRemaining = budget;
+                bestReset = reset;
+            }
+        }
+        if (best == null) {
+            throw new IllegalStateException("No valid GitHub token available");
+        }
+        best.getRateLimits().acquire(family);
+        return best;
+    }
+
+    public List<GHToken> getTokens() {
+        return tokens;
+    }
+
+    public List<GHToken> getConfiguredTokens() {
+        return configuredTokens;
+    }
+
+    /**
+     * Sum of known remaining budgets of valid tokens
+     */
+    public int getRemaining(GHEndpointFamily family) {
+        int remaining = 0;
+        for (GHToken token : tokens) {
+            remaining += Math.max(0, token.getRateLimits().getRemaining(family));
+        }
+        return remaining;
+    }
+
+    public GHToken findById(String id) {
+        for (GHToken token : configuredTokens) {
+            if (token.getId().equals(id)) {
+                return token;
+            }
+        }
+        return null;
+    }
+}
@@ -1,88 +1,256 @@
 package io.quarkus.qe.metrics;
 
-import org.jboss.logging.Logger;
-
 import jakarta.json.Json;
-import jakarta.json.JsonObject;
-import jakarta.json.JsonReader;
-import java.io.IOException;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import jakarta.json.stream.JsonParser;
+import jakarta.json.stream.JsonParserFactory;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToIntFunction;
 
 public class GHUtils {
-    private static final Logger log = Logger.getLogger(GHUtils.class);
 
-    static void dumpHeaders(HttpURLConnection con) {
-        con.getHeaderFields().forEach((key,value)-> {
-            System.out.println(key + ": " + value);
-        });
+    // Json.createParser looks up JsonProvider on every call, the factory is looked up once
+    private static final JsonParserFactory parserFactory = Json.createParserFactory(Collections.emptyMap());
+
+    /**
+     * Extract count from Link header of request with per_page=1, last page number is the count
+     */
+    static int countFromLinkHeader(String link, String body) {
+        if (link != null) {
+            // extract page from Link
+            // <https://api.github.com/repositories/139914932/pulls?per_page=1&page=2>; rel="next", <https://api.github.com/repositories/139914932/pulls?per_page=1&page=90>; rel="last"
+            String countString = link.substring(link.lastIndexOf("&page=")+6);
+            countString = countString.substring(0,countString.lastIndexOf(">"));
+            return Integer.parseInt(countString);
+        }
+        // 0 PRs => empty array + no link, 1 PR => one item + no link
+        return body != null && body.trim().length() > 2 ? 1 : 0;
     }
 
-    static int extractCountFromJSON(String ghToken, URL url) {
-        int count = 0;
-        HttpURLConnection con = null;
-        try {
-            con = (HttpURLConnection) url.openConnection();
-            con.setRequestProperty("Authorization", "token " + ghToken);
-            con.setRequestProperty("User-Agent", "github-metrics");
-            JsonReader jsonReader = Json.createReader(con.getInputStream());
-            JsonObject rootJSON = jsonReader.readObject();
-            count = rootJSON.getInt("total_count");
-        } catch (IOException e) {
-            log.error("Unable to get expected data from URL " + url, e);
-            dumpHeaders(con);
-        } finally {
-            con.disconnect();
+    /**
+     * Read total_count of search response, parsing stops as soon as the value is read
+     */
+    static int extractTotalCount(InputStream json) {
+        return extractIntFields(json, "total_count")[0];
+    }
+
+    /**
+     * Read top level int fields of JSON object without building the whole object in memory
+     *
+     * Nested objects are skipped, e.g. "parent" of forked repository has its own stargazers_count.
+     * Parsing stops as soon as all requested fields are read.
+     */
+    static int[] extractIntFields(InputStream json, String... fields) {
+        int[] values = new int[fields.length];
+        boolean[] found = new boolean[fields.length];
+        int remaining = fields.length;
+        try (JsonParser parser = parserFactory.createParser(json)) {
+            if (!parser.hasNext() || parser.next() != JsonParser.Event.START_OBJECT) {
+                throw new IllegalStateException("JSON object expected");
+            }
+            while (remaining > 0 && parser.hasNext()) {
+                JsonParser.Event event = parser.next();
+                if (event == JsonParser.Event.END_OBJECT) {
+                    break;
+                }
+                // top level object contains only key - value pairs
+                String key = parser.getString();
+                event = parser.next();
+                if (event == JsonParser.Event.START_OBJECT) {
+                    parser.skipObject();
+                } else if (event == JsonParser.Event.START_ARRAY) {
+                    parser.skipArray();
+                } else if (event == JsonParser.Event.VALUE_NUMBER) {
+                    int index = indexOf(fields, key);
+                    if (index >= 0 && !found[index]) {
+                        values[index] = parser.getInt();
+                        found[index] = true;
+                        remaining--;
+                    }
+                }
+            }
+        }
+        if (remaining > 0) {
+            throw new IllegalStateException("Fields " + Arrays.toString(fields) + " not found in JSON");
         }
-        return count;
+        return values;
     }
 
-    static int extractCountFromLinkHeader(String ghToken, URL url) {
-        int count = 0;
-        HttpURLConnection con = null;
-        try {
-            con = (HttpURLConnection) url.openConnection();
-            con.setRequestProperty("Authorization", "token " + ghToken);
-            con.setRequestProperty("User-Agent", "github-metrics");
-            String link = con.getHeaderField("Link");
-            if (link != null) {
-                // extract page from Link
-                // <https://api.github.com/repositories/139914932/pulls?per_page=1&page=2>; rel="next", <https://api.github.com/repositories/139914932/pulls?per_page=1&page=90>; rel="last"
-                String countString = link.substring(link.lastIndexOf("&page=")+6);
-                countString = countString.substring(0,countString.lastIndexOf(">"));
-                count = Integer.parseInt(countString);
-            } else {
-                // 0 PRs => no content + no link, 1 PR  => content + no link, example: 0 => 2, 1 => 14685
-                count = con.getContentLength() > 10 ? 1 : 0;
+    /**
+     * Read full_name of every repository in the array of repositories, archived repositories are skipped
+     *
+     * Every repository object is read field by field and nested objects (owner, permissions, ...) are skipped,
+     * so memory does not grow with the size of the page.
+     */
+    static List<String> extractRepositoryNames(InputStream json) {
+        List<String> names = new ArrayList<>();
+        try (JsonParser parser = parserFactory.createParser(json)) {
+            if (!parser.hasNext() || parser.next() != JsonParser.Event.START_ARRAY) {
+                throw new IllegalStateException("JSON array expected");
+            }
+            while (parser.hasNext() && parser.next() == JsonParser.Event.START_OBJECT) {
+                String name = null;
+                boolean archived = false;
+                while (parser.next() != JsonParser.Event.END_OBJECT) {
+                    String key = parser.getString();
+                    JsonParser.Event event = parser.next();
+                    if (event == JsonParser.Event.START_OBJECT) {
+                        parser.skipObject();
+                    } else if (event == JsonParser.Event.START_ARRAY) {
+                        parser.skipArray();
+                    } else if ("full_name".equals(key) && event == JsonParser.Event.VALUE_STRING) {
+                        name = parser.getString();
+                    } else if ("archived".equals(key)) {
+                        archived = event == JsonParser.Event.VALUE_TRUE;
+                    }
+                }
+                if (name != null && !archived) {
+                    names.add(name);
+                }
             }
-        } catch (IOException e) {
-            log.error("Unable to get expected data from URL " + url, e);
-            dumpHeaders(con);
-        } finally {
-            con.disconnect();
         }
-        return count;
+        return names;
     }
 
-    public static JsonObject getJsonObject(String ghToken, String address) {
-        HttpURLConnection con = null;
-        try {
-            URL url = new URL(address);
-            con = (HttpURLConnection) url.openConnection();
-            con.setRequestProperty("Authorization", "token " + ghToken);
-            con.setRequestProperty("User-Agent", "github-metrics");
-            JsonReader jsonReader = Json.createReader(con.getInputStream());
-            return jsonReader.readObject();
-        } catch (IOException e) {
-            log.error("Unable to get JsonObject data from URL " + address, e);
-            dumpHeaders(con);
+    /**
+     * Read records of issues and PRs of /issues listing, label names are turned into ids by labelIds
+     *
+     * Only number, state, label names, timestamps and merged_at of pull_request are read, other nested objects
+     * (user, assignees, milestone, reactions, ...) are skipped.
+     */
+    static List<GHIssueRecord> extractIssues(InputStream json, ToIntFunction<String> labelIds) {
+        List<GHIssueRecord> issues = new ArrayList<>();
+        try (JsonParser parser = parserFactory.createParser(json)) {
+            if (!parser.hasNext() || parser.next() != JsonParser.Event.START_ARRAY) {
+                throw new IllegalStateException("JSON array expected");
+            }
+            List<Integer> labels = new ArrayList<>();
+            while (parser.hasNext() && parser.next() == JsonParser.Event.START_OBJECT) {
+                int number = 0;
+                boolean pullRequest = false;
+                boolean open = false;
+                long createdAt = 0;
+                long closedAt = 0;
+                long mergedAt = 0;
+                long updatedAt = 0;
+                labels.clear();
+                while (parser.next() != JsonParser.Event.END_OBJECT) {
+                    String key = parser.getString();
+                    JsonParser.Event event = parser.next();
+                    if ("labels".equals(key) && event == JsonParser.Event.START_ARRAY) {
+                        while (parser.next() == JsonParser.Event.START_OBJECT) {
+                            String label = readStringField(parser, "name");
+                            if (label != null) {
+                                labels.add(labelIds.applyAsInt(label));
+                            }
+                        }
+                    } else if ("pull_request".equals(key) && event == JsonParser.Event.START_OBJECT) {
+                        pullRequest = true;
+                        mergedAt = epochSecond(readStringField(parser, "merged_at"));
+                    } else if (event == JsonParser.Event.START_OBJECT) {
+                        parser.skipObject();
+                    } else if (event == JsonParser.Event.START_ARRAY) {
+                        parser.skipArray();
+                    } else if ("number".equals(key) && event == JsonParser.Event.VALUE_NUMBER) {
+                        number = parser.getInt();
+                    } else if ("state".equals(key) && event == JsonParser.Event.VALUE_STRING) {
+                        open = "open".equals(parser.getString());
+                    } else if (event == JsonParser.Event.VALUE_STRING) {
+                        switch (key) {
+                            case "created_at":
+                                createdAt = epochSecond(parser.getString());
+                                break;
+                            case "closed_at":
+                                closedAt = epochSecond(parser.getString());
+                                break;
+                            case "updated_at":
+                                updatedAt = epochSecond(parser.getString());
+                                break;
+                            default:
+                                break;
+                        }
+                    }
+                }
+                int[] labelArray = labels.stream().mapToInt(Integer::intValue).toArray();
+                issues.add(new GHIssueRecord(number, pullRequest, open, labelArray, createdAt, closedAt, mergedAt, updatedAt));
+            }
+        }
+        return issues;
+    }
+
+    /**
+     * Read string field of the current object and consume the object up to its end, nested values are skipped
+     */
+    private static String readStringField(JsonParser parser, String field) {
+        String value = null;
+        while (parser.next() != JsonParser.Event.END_OBJECT) {
+            String key = parser.getString();
+            JsonParser.Event event = parser.next();
+            if (event == JsonParser.Event.START_OBJECT) {
+                parser.skipObject();
+            } else if (event == JsonParser.Event.START_ARRAY) {
+                parser.skipArray();
+            } else if (field.equals(key) && event == JsonParser.Event.VALUE_STRING) {
+                value = parser.getString();
+            }
+        }
+        return value;
+    }
+
+    private static long epochSecond(String timestamp) {
+        return timestamp == null ? 0 : Instant.parse(timestamp).getEpochSecond();
+    }
+
+    /**
+     * URL of the next page from Link header, null on the last page
+     */
+    static String nextPageFromLinkHeader(String link) {
+        if (link == null) {
             return null;
-        } finally {
-            con.disconnect();
         }
+        // <https://api.github.com/organizations/47638783/repos?per_page=100&page=2>; rel="next", <...>; rel="last"
+        for (String part : link.split(",")) {
+            int end = part.indexOf('>');
+            if (part.contains("rel=\"next\"") && end > 0) {
+                return part.substring(part.indexOf('<') + 1, end);
+            }
+        }
+        return null;
     }
 
-    public static boolean isTokenValid(String ghToken) {
-        return getJsonObject(ghToken, "https://api.github.com/") != null;
+    /**
+     * Milliseconds to wait according to Retry-After header (delay in seconds or HTTP date), 0 when missing or invalid
+     */
+    static long retryAfterMillis(String retryAfter, long nowMillis) {
+        if (retryAfter == null || retryAfter.isBlank()) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(retryAfter.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            // Retry-After: Wed, 21 Oct 2015 07:28:00 GMT
+        }
+        try {
+            long retryAt = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return Math.max(0, retryAt - nowMillis);
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+
+    private static int indexOf(String[] fields, String key) {
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
     }
 }
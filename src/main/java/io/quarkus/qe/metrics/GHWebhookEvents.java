@@ -0,0 +1,268 @@
+package io.quarkus.qe.metrics;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricID;
+import org.eclipse.microprofile.metrics.Tag;
+import org.jboss.logging.Logger;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonValue;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Counters updated by GitHub webhook events (issues, pull_request, star, fork, create / delete of tags)
+ *
+ * Events are applied as deltas to the values of the collector, so counts change within seconds of the event. Metrics
+ * kept up to date by events are polled only every gh.webhook.reconcile.period to correct missed deliveries.
+ * Redeliveries (same X-GitHub-Delivery id) of recent deliveries are ignored.
+ * Counts of *_last_24h metrics are only increased by events, items leaving the 24 hours window are subtracted
+ * by the reconciliation.
+ */
+@ApplicationScoped
+public class GHWebhookEvents {
+
+    private static final Logger log = Logger.getLogger(GHWebhookEvents.class);
+
+    static final Set<String> WEBHOOK_METRICS = Set.of(
+            "gh_repo_stars", "gh_repo_forks", "gh_repo_tags", "gh_repo_open_issues_and_prs",
+            "gh_repo_open_issues", "gh_repo_closed_issues", "gh_repo_open_prs", "gh_repo_closed_prs", "gh_repo_merged_prs",
+            "gh_repo_created_issues_last_24h", "gh_repo_closed_issues_last_24h",
+            "gh_repo_created_prs_last_24h", "gh_repo_closed_prs_last_24h", "gh_repo_merged_prs_last_24h");
+    // redeliveries come within hours of the original delivery, GitHub does not retry failed deliveries on its own
+    static final int MAX_REMEMBERED_DELIVERIES = 1000;
+
+    @ConfigProperty(name = "gh.webhook.secret")
+    Optional<String> secret;
+    @ConfigProperty(name = "gh.webhook.reconcile.period", defaultValue = "15m")
+    Duration reconcilePeriod;
+
+    @Inject
+    GHMetricsCollector collector;
+
+    private final Map<String, Boolean> deliveries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_REMEMBERED_DELIVERIES;
+        }
+    };
+
+    /**
+     * Poll webhook covered metrics only for reconciliation, to be called once all metrics are registered
+     */
+    public void init() {
+        if (!isEnabled()) {
+            return;
+        }
+        collector.setMinRefreshInterval(metricID -> WEBHOOK_METRICS.contains(metricID.getName()), reconcilePeriod);
+        log.info("Webhook events enabled, reconciling webhook metrics every " + reconcilePeriod);
+    }
+
+    public boolean isEnabled() {
+        return secret.isPresent() && !secret.get().isEmpty();
+    }
+
+    /**
+     * Check X-Hub-Signature-256 header, HMAC SHA-256 of the body with the webhook secret
+     */
+    public boolean isSignatureValid(byte[] body, String signature) {
+        if (!isEnabled() || signature == null || !signature.startsWith("sha256=")) {
+            return false;
+        }
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.get().getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] expected = mac.doFinal(body);
+            byte[] actual = HexFormat.of().parseHex(signature.substring("sha256=".length()));
+            return MessageDigest.isEqual(expected, actual);
+        } catch (IllegalArgumentException e) {
+            return false;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    /**
+     * Remember X-GitHub-Delivery id of the delivery, false when the delivery was already received
+     */
+    public boolean isNewDelivery(String deliveryId) {
+        if (deliveryId == null) {
+            return true;
+        }
+        synchronized (deliveries) {
+            return deliveries.put(deliveryId, Boolean.TRUE) == null;
+        }
+    }
+
+    public void apply(String event, JsonObject payload) {
+        Map<MetricID, Long> deltas = deltas(event, payload);
+        if (!deltas.isEmpty()) {
+            log.debug("Applying " + event + " event: " + deltas);
+            collector.adjust(deltas);
+        }
+    }
+
+    static Map<MetricID, Long> deltas(String event, JsonObject payload) {
+        Map<MetricID, Long> deltas = new HashMap<>();
+        JsonObject repository = payload.getJsonObject("repository");
+        if (event == null || repository == null) {
+            return deltas;
+        }
+        Tag repoTag = new Tag("repo", repository.getString("full_name", ""));
+        String action = payload.getString("action", "");
+        switch (event) {
+            case "star":
+                if ("created".equals(action)) {
+                    add(deltas, "gh_repo_stars", 1, repoTag);
+                } else if ("deleted".equals(action)) {
+                    add(deltas, "gh_repo_stars", -1, repoTag);
+                }
+                break;
+            case "fork":
+                add(deltas, "gh_repo_forks", 1, repoTag);
+                break;
+            case "create":
+            case "delete":
+                if ("tag".equals(payload.getString("ref_type", ""))) {
+                    add(deltas, "gh_repo_tags", "create".equals(event) ? 1 : -1, repoTag);
+                }
+                break;
+            case "issues":
+                issueDeltas(deltas, action, payload.getJsonObject("issue"), changedLabel(payload), repoTag);
+                break;
+            case "pull_request":
+                pullRequestDeltas(deltas, action, payload.getJsonObject("pull_request"), changedLabel(payload), repoTag);
+                break;
+            default:
+                break;
+        }
+        return deltas;
+    }
+
+    private static void issueDeltas(Map<MetricID, Long> deltas, String action, JsonObject issue, String changedLabel, Tag repoTag) {
+        if (issue == null) {
+            return;
+        }
+        List<String> labels = labels(issue);
+        switch (action) {
+            case "opened":
+                add(deltas, "gh_repo_open_issues_and_prs", 1, repoTag);
+                add(deltas, "gh_repo_created_issues_last_24h", 1, repoTag);
+                addLabeled(deltas, "gh_repo_open_issues", 1, repoTag, labels);
+                break;
+            case "closed":
+                add(deltas, "gh_repo_open_issues_and_prs", -1, repoTag);
+                add(deltas, "gh_repo_closed_issues_last_24h", 1, repoTag);
+                addLabeled(deltas, "gh_repo_open_issues", -1, repoTag, labels);
+                addLabeled(deltas, "gh_repo_closed_issues", 1, repoTag, labels);
+                break;
+            case "reopened":
+                add(deltas, "gh_repo_open_issues_and_prs", 1, repoTag);
+                addLabeled(deltas, "gh_repo_open_issues", 1, repoTag, labels);
+                addLabeled(deltas, "gh_repo_closed_issues", -1, repoTag, labels);
+                break;
+            case "deleted":
+                if ("open".equals(issue.getString("state", ""))) {
+                    add(deltas, "gh_repo_open_issues_and_prs", -1, repoTag);
+                    addLabeled(deltas, "gh_repo_open_issues", -1, repoTag, labels);
+                } else {
+                    addLabeled(deltas, "gh_repo_closed_issues", -1, repoTag, labels);
+                }
+                break;
+            case "labeled":
+            case "unlabeled":
+                if (changedLabel != null) {
+                    String name = "open".equals(issue.getString("state", "")) ? "gh_repo_open_issues" : "gh_repo_closed_issues";
+                    add(deltas, name, "labeled".equals(action) ? 1 : -1, repoTag, new Tag("label", changedLabel));
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void pullRequestDeltas(Map<MetricID, Long> deltas, String action, JsonObject pullRequest, String changedLabel, Tag repoTag) {
+        if (pullRequest == null) {
+            return;
+        }
+        List<String> labels = labels(pullRequest);
+        switch (action) {
+            case "opened":
+                add(deltas, "gh_repo_open_issues_and_prs", 1, repoTag);
+                add(deltas, "gh_repo_open_prs", 1, repoTag);
+                add(deltas, "gh_repo_created_prs_last_24h", 1, repoTag);
+                break;
+            case "closed":
+                add(deltas, "gh_repo_open_issues_and_prs", -1, repoTag);
+                add(deltas, "gh_repo_open_prs", -1, repoTag);
+                add(deltas, "gh_repo_closed_prs_last_24h", 1, repoTag);
+                addLabeled(deltas, "gh_repo_closed_prs", 1, repoTag, labels);
+                if (pullRequest.getBoolean("merged", false)) {
+                    add(deltas, "gh_repo_merged_prs", 1, repoTag);
+                    add(deltas, "gh_repo_merged_prs_last_24h", 1, repoTag);
+                }
+                break;
+            case "reopened":
+                add(deltas, "gh_repo_open_issues_and_prs", 1, repoTag);
+                add(deltas, "gh_repo_open_prs", 1, repoTag);
+                addLabeled(deltas, "gh_repo_closed_prs", -1, repoTag, labels);
+                break;
+            case "labeled":
+            case "unlabeled":
+                if (changedLabel != null && "closed".equals(pullRequest.getString("state", ""))) {
+                    add(deltas, "gh_repo_closed_prs", "labeled".equals(action) ? 1 : -1, repoTag, new Tag("label", changedLabel));
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Adjust metric without label and the metric of every label of the item, metrics of labels which are not tracked
+     * have no value and are ignored by the collector
+     */
+    private static void addLabeled(Map<MetricID, Long> deltas, String name, long delta, Tag repoTag, List<String> labels) {
+        add(deltas, name, delta, repoTag);
+        for (String label : labels) {
+            add(deltas, name, delta, repoTag, new Tag("label", label));
+        }
+    }
+
+    private static void add(Map<MetricID, Long> deltas, String name, long delta, Tag... tags) {
+        deltas.merge(new MetricID(name, tags), delta, Long::sum);
+    }
+
+    private static String changedLabel(JsonObject payload) {
+        JsonValue label = payload.get("label");
+        return label != null && label.getValueType() == JsonValue.ValueType.OBJECT
+                ? label.asJsonObject().getString("name", null) : null;
+    }
+
+    private static List<String> labels(JsonObject item) {
+        List<String> labels = new ArrayList<>();
+        JsonValue labelsJSON = item.get("labels");
+        if (labelsJSON != null && labelsJSON.getValueType() == JsonValue.ValueType.ARRAY) {
+            for (JsonValue label : labelsJSON.asJsonArray()) {
+                if (label.getValueType() == JsonValue.ValueType.OBJECT) {
+                    labels.add(label.asJsonObject().getString("name", ""));
+                }
+            }
+        }
+        return labels;
+    }
+}
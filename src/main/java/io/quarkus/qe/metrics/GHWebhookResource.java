@@ -0,0 +1,63 @@
+package io.quarkus.qe.metrics;
+
+import org.jboss.logging.Logger;
+
+import jakarta.inject.Inject;
+import jakarta.json.Json;
+import jakarta.json.JsonException;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonReaderFactory;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.io.ByteArrayInputStream;
+import java.util.Collections;
+
+/**
+ * Endpoint for GitHub webhook deliveries, enabled by gh.webhook.secret
+ *
+ * The body is verified against X-Hub-Signature-256 before it is parsed, deliveries with missing or invalid signature
+ * are rejected. Redeliveries of already applied deliveries are acknowledged without applying them again.
+ */
+@Path("/webhook")
+public class GHWebhookResource {
+
+    private static final Logger log = Logger.getLogger(GHWebhookResource.class);
+    private static final JsonReaderFactory readerFactory = Json.createReaderFactory(Collections.emptyMap());
+
+    @Inject
+    GHWebhookEvents webhookEvents;
+
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Response receive(@HeaderParam("X-GitHub-Event") String event,
+                            @HeaderParam("X-GitHub-Delivery") String delivery,
+                            @HeaderParam("X-Hub-Signature-256") String signature,
+                            byte[] body) {
+        if (!webhookEvents.isEnabled()) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        if (!webhookEvents.isSignatureValid(body, signature)) {
+            log.warn("Rejecting " + event + " webhook delivery with invalid signature");
+            return Response.status(Response.Status.UNAUTHORIZED).build();
+        }
+        if ("ping".equals(event)) {
+            return Response.ok().build();
+        }
+        if (!webhookEvents.isNewDelivery(delivery)) {
+            log.debug("Ignoring redelivery " + delivery + " of " + event + " webhook");
+            return Response.ok().build();
+        }
+        try (JsonReader reader = readerFactory.createReader(new ByteArrayInputStream(body))) {
+            webhookEvents.apply(event, reader.readObject());
+        } catch (JsonException | ClassCastException e) {
+            log.warn("Unable to process " + event + " webhook delivery", e);
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        return Response.accepted().build();
+    }
+}
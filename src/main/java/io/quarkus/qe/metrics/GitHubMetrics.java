@@ -1,7 +1,9 @@
 package io.quarkus.qe.metrics;
 
 import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricID;
 import org.eclipse.microprofile.metrics.MetricRegistry;
 import org.eclipse.microprofile.metrics.Tag;
 import org.jboss.logging.Logger;
@@ -10,23 +12,36 @@ import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.event.Observes;
 import jakarta.inject.Inject;
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
 
 @ApplicationScoped
 public class GitHubMetrics {
 
-    @ConfigProperty(name = "gh.repos", defaultValue = "quarkusio/quarkus")
-    public List<String> ghRepos;
+    @ConfigProperty(name = "gh.repos")
+    public Optional<List<String>> ghRepos;
 
     @ConfigProperty(name = "gh.details.level", defaultValue = "BASE")
     GHDetailsLevel ghDetailsLevel;
 
-    @ConfigProperty(name = "gh.token")
-    String ghToken;
+    @ConfigProperty(name = "gh.backend", defaultValue = "REST")
+    GHBackend ghBackend;
 
     @Inject
     MetricRegistry registry;
 
+    @Inject
+    GHClient ghClient;
+
+    @Inject
+    GHTokenPool tokenPool;
+
     @Inject
     GHRepositoryBaseMetrics ghRepositoryBaseMetrics;
 
@@ -36,38 +51,270 @@ public class GitHubMetrics {
     @Inject
     GHRepositoryCustomMetrics ghRepositoryCustomMetrics;
 
+    @Inject
+    GHRepositoryGraphQLMetrics ghRepositoryGraphQLMetrics;
+
+    @Inject
+    GHExporterMetrics ghExporterMetrics;
+
+    @Inject
+    GHSnapshotStore snapshotStore;
+
+    @Inject
+    GHPushExporter pushExporter;
+
+    @Inject
+    GHExposition exposition;
+
+    @Inject
+    GHWebhookEvents webhookEvents;
+
+    @Inject
+    GHOrganizationDiscovery organizationDiscovery;
+
+    @Inject
+    GHMetricsCollector collector;
+
+    @Inject
+    GHSharding sharding;
+
+    @Inject
+    GHQueryPlanner planner;
+
+    @Inject
+    GHIssueIndex issueIndex;
+
+    @Inject
+    GHGitMirror gitMirror;
+
+    @ConfigProperty(name = "gh.startup.retry.initial", defaultValue = "5s")
+    Duration startupRetryInitial;
+    @ConfigProperty(name = "gh.startup.retry.max", defaultValue = "5m")
+    Duration startupRetryMax;
+
+    private final Set<String> repositories = new LinkedHashSet<>();
+    private volatile boolean started;
+    private volatile StartupState startupState = StartupState.VALIDATING_TOKENS;
+    private volatile long startupMillis = -1;
+
     private static final Logger log = Logger.getLogger(GitHubMetrics.class);
 
+    /**
+     * Startup event is not blocked by GitHub, tokens are validated and metrics registered in background
+     */
     void onStart(@Observes StartupEvent ev) throws IOException {
         log.info("The application is starting in " + ghDetailsLevel + " details level");
+        long start = System.currentTimeMillis();
+        snapshotStore.init();
+        pushExporter.init();
+        exposition.init();
 
-        ghRepositoryBaseMetrics.initiateGH(ghToken);
-        if (! ghRepositoryBaseMetrics.isGHInitiated()) {
-            return;
+        Thread startup = new Thread(() -> startWithRetry(start), "gh-startup");
+        startup.setDaemon(true);
+        startup.start();
+    }
+
+    /**
+     * Register configured repositories, validate tokens until GitHub answers, then register the rest and run
+     * the first refresh
+     *
+     * Gauges of configured repositories serve values restored from snapshot while GitHub is unreachable,
+     * refreshes wait for the validation.
+     */
+    void startWithRetry(long start) {
+        collector.setRefreshEnabled(false);
+        for (String repo : configuredRepositories()) {
+            registerRepository(repo.trim());
+        }
+        long delayMillis = startupRetryInitial.toMillis();
+        while (true) {
+            try {
+                if (!tokenPool.validate(ghClient::isTokenValid)) {
+                    log.error("No valid GitHub token, metrics are not registered");
+                    List<String> registered;
+                    synchronized (repositories) {
+                        registered = new ArrayList<>(repositories);
+                    }
+                    registered.forEach(this::unregisterRepository);
+                    startupState = StartupState.NO_VALID_TOKEN;
+                    return;
+                }
+                break;
+            } catch (RuntimeException e) {
+                log.warn("Unable to validate GitHub tokens, retrying in " + delayMillis + " ms: " + e.getMessage());
+            }
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            delayMillis = Math.min(delayMillis * 2, startupRetryMax.toMillis());
         }
-        ghRepositoryAdvancedMetrics.initiateGH(ghToken);
-        ghRepositoryCustomMetrics.initiateGH(ghToken);
-
-        for (String repo : ghRepos) {
-            String repositoryName = repo.trim();
-            Tag repositoryTag = new Tag("repo", repositoryName);
-            log.info("Processing: '" + repositoryName + "'");
-
-            switch (ghDetailsLevel) {
-                case VERBOSE:
-                    ghRepositoryAdvancedMetrics.ghVerboseMetrics(registry, repositoryName, repositoryTag);
-                case ADVANCED:
-                    ghRepositoryAdvancedMetrics.ghAdvancedMetrics(registry, repositoryName, repositoryTag);
-                case BASE:
-                    ghRepositoryBaseMetrics.ghBaseMetrics(registry, repositoryName, repositoryTag);
-                    break;
-                case CUSTOM:
-                    ghRepositoryCustomMetrics.ghCustomMetrics(registry, repositoryName, repositoryTag);
-                    break;
+        startupState = StartupState.REGISTERING;
+        registerMetrics();
+        collector.pruneUnregistered();
+        startupMillis = System.currentTimeMillis() - start;
+        log.info(getRepositoryCount() + " repositories registered " + startupMillis + " ms after start");
+        startupState = StartupState.STARTED;
+        collector.setRefreshEnabled(true);
+        collector.refresh();
+    }
+
+    private void registerMetrics() {
+        if (organizationDiscovery.isEnabled()) {
+            Set<String> discovered = organizationDiscovery.discover();
+            if (discovered != null) {
+                discovered.forEach(this::registerRepository);
             }
         }
+        if (useGraphQL()) {
+            ghRepositoryGraphQLMetrics.registerBatches();
+        }
 
+        planner.logPlan();
+        webhookEvents.init();
         ghRepositoryBaseMetrics.ghRateLimitMetrics(registry);
+        ghExporterMetrics.ghExporterMetrics(registry);
+        started = true;
+    }
+
+    /**
+     * Ready when metrics are registered and values are available, from the first refresh or restored snapshot
+     */
+    public boolean isReady() {
+        return getStartupState() == StartupState.READY;
+    }
+
+    public StartupState getStartupState() {
+        StartupState state = startupState;
+        if (state == StartupState.STARTED && !collector.getSnapshot().isEmpty()) {
+            return StartupState.READY;
+        }
+        return state;
+    }
+
+    /**
+     * Milliseconds from startup event until metrics were registered, -1 before that
+     */
+    public long getStartupMillis() {
+        return startupMillis;
+    }
+
+    public int getRepositoryCount() {
+        synchronized (repositories) {
+            return repositories.size();
+        }
+    }
+
+    /**
+     * Register repositories which appeared in organizations and unregister those removed or archived
+     */
+    @Scheduled(every = "${gh.orgs.discovery.period:1h}", delayed = "${gh.orgs.discovery.period:1h}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void discoverRepositories() {
+        if (!started || !organizationDiscovery.isEnabled()) {
+            return;
+        }
+        Set<String> discovered = organizationDiscovery.discover();
+        if (discovered == null) {
+            // keep tracked repositories when the listing failed
+            return;
+        }
+        Set<String> configured = new HashSet<>();
+        configuredRepositories().forEach(repo -> configured.add(repo.trim()));
+        List<String> removed = new ArrayList<>();
+        synchronized (repositories) {
+            for (String repositoryName : repositories) {
+                if (!discovered.contains(repositoryName) && !configured.contains(repositoryName)) {
+                    removed.add(repositoryName);
+                }
+            }
+        }
+        removed.forEach(this::unregisterRepository);
+        int added = 0;
+        for (String repositoryName : discovered) {
+            if (registerRepository(repositoryName)) {
+                added++;
+            }
+        }
+        if (removed.isEmpty() && added == 0) {
+            return;
+        }
+        log.info("Repository discovery: " + added + " added, " + removed.size() + " removed");
+        if (useGraphQL()) {
+            ghRepositoryGraphQLMetrics.registerBatches();
+        }
+        planner.logPlan();
+        webhookEvents.init();
+    }
+
+    private List<String> configuredRepositories() {
+        // quarkusio/quarkus is tracked by default only when no organization is configured
+        return ghRepos.orElse(organizationDiscovery.isEnabled() ? List.of() : List.of("quarkusio/quarkus"));
+    }
+
+    private boolean useGraphQL() {
+        return ghBackend == GHBackend.GRAPHQL && ghDetailsLevel != GHDetailsLevel.CUSTOM;
+    }
+
+    /**
+     * @return false when the repository is already registered or belongs to another shard
+     */
+    boolean registerRepository(String repositoryName) {
+        if (!sharding.owns(repositoryName)) {
+            log.debug("Skipping: '" + repositoryName + "', it belongs to another shard");
+            return false;
+        }
+        synchronized (repositories) {
+            if (!repositories.add(repositoryName)) {
+                return false;
+            }
+        }
+        Tag repositoryTag = new Tag("repo", repositoryName);
+        log.info("Processing: '" + repositoryName + "'");
+
+        if (useGraphQL()) {
+            ghRepositoryGraphQLMetrics.ghGraphQLMetrics(registry, repositoryName, ghDetailsLevel, repositoryTag);
+            return true;
+        }
+        switch (ghDetailsLevel) {
+            case VERBOSE:
+                ghRepositoryAdvancedMetrics.ghVerboseMetrics(registry, repositoryName, repositoryTag);
+            case ADVANCED:
+                ghRepositoryAdvancedMetrics.ghAdvancedMetrics(registry, repositoryName, repositoryTag);
+            case BASE:
+                ghRepositoryBaseMetrics.ghBaseMetrics(registry, repositoryName, repositoryTag);
+                break;
+            case CUSTOM:
+                ghRepositoryCustomMetrics.ghCustomMetrics(registry, repositoryName, repositoryTag);
+                break;
+        }
+        return true;
+    }
+
+    void unregisterRepository(String repositoryName) {
+        synchronized (repositories) {
+            if (!repositories.remove(repositoryName)) {
+                return;
+            }
+        }
+        log.info("Removing: '" + repositoryName + "'");
+        ghRepositoryGraphQLMetrics.removeRepository(repositoryName);
+        Predicate<MetricID> filter = metricID -> repositoryName.equals(metricID.getTags().get("repo"));
+        planner.unregister(filter);
+        issueIndex.unregister(filter);
+        gitMirror.unregister(filter);
+        collector.unregister(registry, filter);
+    }
+
+    enum StartupState {
+        VALIDATING_TOKENS,
+        REGISTERING,
+        // registered, waiting for the first values
+        STARTED,
+        READY,
+        NO_VALID_TOKEN
     }
 
     enum GHDetailsLevel {
@@ -76,4 +323,9 @@ public class GitHubMetrics {
         VERBOSE,
         CUSTOM
     }
+
+    enum GHBackend {
+        REST,
+        GRAPHQL
+    }
 }
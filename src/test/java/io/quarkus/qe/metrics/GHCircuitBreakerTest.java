@@ -0,0 +1,70 @@
+package io.quarkus.qe.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GHCircuitBreakerTest {
+
+    @Test
+    public void testBackoffDoublesUpToMax() {
+        assertEquals(60_000L, GHCircuitBreaker.backoff(60_000, 1_800_000, 0));
+        assertEquals(240_000L, GHCircuitBreaker.backoff(60_000, 1_800_000, 2));
+        assertEquals(1_800_000L, GHCircuitBreaker.backoff(60_000, 1_800_000, 5));
+        assertEquals(1_800_000L, GHCircuitBreaker.backoff(60_000, 1_800_000, 100));
+    }
+
+    @Test
+    public void testOpensAfterConsecutiveFailures() {
+        GHCircuitBreaker circuitBreaker = new GHCircuitBreaker(GHEndpointFamily.CORE, 3, 60_000, 1_800_000, 0);
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        circuitBreaker.acquire();
+        assertEquals(GHCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        circuitBreaker.onFailure();
+        assertEquals(GHCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        GHCircuitOpenException rejected = assertThrows(GHCircuitOpenException.class, circuitBreaker::acquire);
+        assertTrue(rejected.getOpenForMillis() > 55_000);
+        assertEquals(1L, circuitBreaker.getRejected());
+        assertEquals(1L, circuitBreaker.getOpened());
+    }
+
+    @Test
+    public void testRetryAfterIsHonoured() {
+        GHCircuitBreaker circuitBreaker = new GHCircuitBreaker(GHEndpointFamily.SEARCH, 5, 1_000, 10_000, 0);
+        circuitBreaker.onRateLimited(120_000);
+        GHCircuitOpenException rejected = assertThrows(GHCircuitOpenException.class, circuitBreaker::acquire);
+        assertTrue(rejected.getOpenForMillis() > 115_000, "Open circuit must wait for Retry-After longer than the backoff");
+    }
+
+    @Test
+    public void testHalfOpenLetsOneTrialThrough() throws InterruptedException {
+        GHCircuitBreaker circuitBreaker = new GHCircuitBreaker(GHEndpointFamily.SEARCH, 1, 100, 10_000, 0);
+        circuitBreaker.onFailure();
+        Thread.sleep(120);
+        assertEquals(GHCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+        circuitBreaker.acquire();
+        assertThrows(GHCircuitOpenException.class, circuitBreaker::acquire, "Only one trial request is sent");
+        // failed trial doubles the backoff
+        circuitBreaker.onFailure();
+        Thread.sleep(50);
+        assertEquals(GHCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        Thread.sleep(200);
+
+        circuitBreaker.acquire();
+        circuitBreaker.release();
+        circuitBreaker.acquire();
+        circuitBreaker.onSuccess();
+        assertEquals(GHCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        circuitBreaker.acquire();
+        circuitBreaker.acquire();
+        assertEquals(2L, circuitBreaker.getOpened());
+    }
+}
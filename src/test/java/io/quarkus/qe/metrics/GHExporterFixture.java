@@ -0,0 +1,87 @@
+package io.quarkus.qe.metrics;
+
+import io.smallrye.metrics.MetricRegistries;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Tag;
+
+import java.time.Duration;
+
+/**
+ * Exporter beans wired without CDI against given GitHub API, used by benchmarks and load harness
+ */
+class GHExporterFixture implements AutoCloseable {
+
+    final MetricRegistry registry = MetricRegistries.get(MetricRegistry.Type.APPLICATION);
+    final GHClient ghClient;
+    final GHMetricsCollector collector = new GHMetricsCollector();
+    final GHRepositoryBaseMetrics baseMetrics = new GHRepositoryBaseMetrics();
+    final GHRepositoryAdvancedMetrics advancedMetrics = new GHRepositoryAdvancedMetrics();
+    final GHQueryPlanner planner = new GHQueryPlanner();
+    final GHIssueIndex issueIndex = new GHIssueIndex();
+    final GHGitMirror gitMirror = new GHGitMirror();
+    final GHExposition exposition = new GHExposition();
+
+    GHExporterFixture(String apiUrl, int concurrency) {
+        ghClient = GHRepositoryGraphQLMetricsTest.stubClient(apiUrl);
+
+        collector.concurrency = concurrency;
+        collector.config = ConfigProvider.getConfig();
+        collector.init();
+
+        baseMetrics.collector = collector;
+        baseMetrics.ghClient = ghClient;
+        baseMetrics.repositoryCacheTTL = Duration.ofMinutes(1);
+        baseMetrics.repositoryCacheJitter = 0.1;
+        baseMetrics.repositoryCacheMaxSize = 100_000;
+        baseMetrics.init();
+
+        planner.enabled = true;
+        planner.collector = collector;
+        planner.ghClient = ghClient;
+
+        issueIndex.collector = collector;
+        issueIndex.ghClient = ghClient;
+
+        advancedMetrics.collector = collector;
+        advancedMetrics.planner = planner;
+        advancedMetrics.index = issueIndex;
+        advancedMetrics.gitMirror = gitMirror;
+        advancedMetrics.ghClient = ghClient;
+        advancedMetrics.labelQuestion = "kind/question";
+        advancedMetrics.labelBug = "kind/bug";
+        advancedMetrics.labelEpic = "kind/epic";
+        advancedMetrics.labelEnhancement = "kind/enhancement";
+        advancedMetrics.labelProposal = "kind/extension-proposal";
+        advancedMetrics.labelInvalid = "triage/invalid";
+        advancedMetrics.labelDuplicate = "triage/duplicate";
+
+        exposition.enabled = true;
+        exposition.collector = collector;
+        exposition.init();
+    }
+
+    /**
+     * Register metrics of repositories benchmark/repository-0 .. n-1 like GitHubMetrics does
+     */
+    void registerRepositories(int count, GitHubMetrics.GHDetailsLevel level) {
+        for (int i = 0; i < count; i++) {
+            String repositoryName = "benchmark/repository-" + i;
+            Tag repositoryTag = new Tag("repo", repositoryName);
+            switch (level) {
+                case VERBOSE:
+                    advancedMetrics.ghVerboseMetrics(registry, repositoryName, repositoryTag);
+                case ADVANCED:
+                    advancedMetrics.ghAdvancedMetrics(registry, repositoryName, repositoryTag);
+                default:
+                    baseMetrics.ghBaseMetrics(registry, repositoryName, repositoryTag);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        collector.shutdown();
+        MetricRegistries.dropAll();
+    }
+}
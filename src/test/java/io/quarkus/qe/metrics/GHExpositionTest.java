@@ -0,0 +1,124 @@
+package io.quarkus.qe.metrics;
+
+import io.smallrye.metrics.ExtendedMetadataBuilder;
+import io.smallrye.metrics.MetricRegistries;
+import io.smallrye.metrics.exporters.OpenMetricsExporter;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.MetricID;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.Tag;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Exposition is rendered once per change of collector values
+ */
+public class GHExpositionTest {
+
+    private static final Tag REPO = new Tag("repo", "quarkusio/quarkus");
+
+    @AfterEach
+    public void dropRegistries() {
+        MetricRegistries.dropAll();
+    }
+
+    @Test
+    public void testRenderedOncePerChange() throws IOException {
+        GHExposition exposition = exposition();
+        MetricID stars = new MetricID("gh_repo_stars", REPO);
+        exposition.collector.restore(Map.of(stars, 4328));
+
+        GHExposition.Rendered first = exposition.get();
+        String text = new String(first.text, StandardCharsets.UTF_8);
+        assertTrue(text.contains("gh_repo_stars{repo=\"quarkusio/quarkus\"} 4328.0"), text);
+        assertArrayEquals(first.text, new GZIPInputStream(new ByteArrayInputStream(first.gzip)).readAllBytes());
+        assertSame(first, exposition.get(), "Unchanged values must not be rendered again");
+
+        exposition.collector.adjust(Map.of(stars, 1L));
+        GHExposition.Rendered second = exposition.get();
+        assertTrue(new String(second.text, StandardCharsets.UTF_8).contains("} 4329.0"));
+        assertNotEquals(first.etag, second.etag);
+
+        exposition.collector.adjust(Map.of(stars, -1L));
+        assertEquals(first.etag, exposition.get().etag, "Same content must have the same ETag");
+    }
+
+    @Test
+    public void testLiveGaugesAreReadOnEveryScrape() throws IOException {
+        GHExposition exposition = exposition();
+        MetricID stars = new MetricID("gh_repo_stars", REPO);
+        exposition.collector.restore(Map.of(stars, 4328));
+        AtomicInteger inFlight = new AtomicInteger(3);
+        MetricRegistries.get(MetricRegistry.Type.APPLICATION).register(
+                new ExtendedMetadataBuilder()
+                        .withName("gh_exporter_requests_in_flight")
+                        .withType(MetricType.GAUGE)
+                        .withDescription("Number of GitHub requests waiting for response")
+                        .skipsScopeInOpenMetricsExportCompletely(true)
+                        .prependsScopeToOpenMetricsName(false)
+                        .build(),
+                (Gauge<Number>) inFlight::get, new Tag("family", "core"));
+
+        GHExposition.Rendered first = exposition.get();
+        String text = scrape(first, false);
+        String exported = new OpenMetricsExporter().exportOneScope(MetricRegistry.Type.APPLICATION).toString();
+        assertEquals(sortedLines(exported), sortedLines(text), "Same lines as written by the exporter");
+        assertEquals(text, scrape(first, true));
+
+        inFlight.set(5);
+        GHExposition.Rendered second = exposition.get();
+        assertSame(first, second, "Live gauges must not cause rendering");
+        String secondText = scrape(second, true);
+        assertTrue(secondText.contains("gh_exporter_requests_in_flight{family=\"core\"} 5.0"), secondText);
+        assertTrue(secondText.contains("gh_repo_stars{repo=\"quarkusio/quarkus\"} 4328.0"), secondText);
+        assertEquals(first.etag, second.etag, "ETag covers only series of the snapshot");
+    }
+
+    /**
+     * Body of the response, the gzip variant is decompressed
+     */
+    private static String scrape(GHExposition.Rendered rendered, boolean gzip) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        rendered.write(output, gzip);
+        byte[] body = gzip ? new GZIPInputStream(new ByteArrayInputStream(output.toByteArray())).readAllBytes() : output.toByteArray();
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    private static String sortedLines(String text) {
+        String[] lines = text.split("\n");
+        Arrays.sort(lines);
+        return String.join("\n", lines);
+    }
+
+    private static GHExposition exposition() {
+        GHExposition exposition = new GHExposition();
+        exposition.enabled = true;
+        exposition.collector = new GHMetricsCollector();
+        exposition.collector.registerGauge(MetricRegistries.get(MetricRegistry.Type.APPLICATION),
+                new ExtendedMetadataBuilder()
+                        .withName("gh_repo_stars")
+                        .withType(MetricType.GAUGE)
+                        .withDescription("Total number of Stars for given repository")
+                        .skipsScopeInOpenMetricsExportCompletely(true)
+                        .prependsScopeToOpenMetricsName(false)
+                        .build(),
+                REPO);
+        return exposition;
+    }
+}
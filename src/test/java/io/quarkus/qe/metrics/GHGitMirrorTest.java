@@ -0,0 +1,184 @@
+package io.quarkus.qe.metrics;
+
+import io.smallrye.metrics.ExtendedMetadataBuilder;
+import io.smallrye.metrics.MetricRegistries;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricID;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.Tag;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Mirror of local file:// repository
+ */
+public class GHGitMirrorTest {
+
+    private Path root;
+    private Path source;
+    private GHGitMirror gitMirror;
+    // git command which fails in the mirror
+    private volatile String failingCommand;
+    private final MetricRegistry registry = MetricRegistries.get(MetricRegistry.Type.APPLICATION);
+
+    @BeforeEach
+    public void createRepository() throws Exception {
+        root = Files.createTempDirectory("gh-git-mirror");
+        source = root.resolve("origin/quarkusio/quarkus.git");
+        Files.createDirectories(source);
+        git("init", "--quiet", "--initial-branch=main");
+        commit("alice@example.com");
+        commit("bob@example.com");
+        git("tag", "1.0.0");
+
+        GHMetricsCollector collector = new GHMetricsCollector();
+        collector.config = ConfigProvider.getConfig();
+        collector.init();
+        gitMirror = new GHGitMirror() {
+            @Override
+            void git(Path workingDirectory, Consumer<String> output, String... arguments) {
+                if (arguments[0].equals(failingCommand)) {
+                    throw new IllegalStateException("git " + failingCommand + " failed");
+                }
+                super.git(workingDirectory, output, arguments);
+            }
+        };
+        gitMirror.enabled = true;
+        gitMirror.mirrorDir = root.resolve("mirrors").toString();
+        gitMirror.gitUrl = root.resolve("origin").toUri().toString();
+        gitMirror.timeout = Duration.ofMinutes(1);
+        gitMirror.collector = collector;
+        gitMirror.cloneExecutor = Runnable::run;
+    }
+
+    @AfterEach
+    public void deleteRepository() throws IOException {
+        MetricRegistries.dropAll();
+        try (Stream<Path> files = Files.walk(root)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testCountsAreUpdatedIncrementally() throws Exception {
+        Tag repo = new Tag("repo", "quarkusio/quarkus");
+        MetricID commits = gitMirror.register(registry, metadata("gh_repo_commits"), "quarkusio/quarkus",
+                GHGitMirror.Mirror::getCommits, repo);
+        MetricID contributors = gitMirror.register(registry, metadata("gh_repo_contributors"), "quarkusio/quarkus",
+                GHGitMirror.Mirror::getContributors, repo);
+        MetricID tags = gitMirror.register(registry, metadata("gh_repo_tags"), "quarkusio/quarkus",
+                GHGitMirror.Mirror::getTags, repo);
+
+        gitMirror.collector.refresh();
+        assertEquals(2L, gitMirror.collector.getValue(commits));
+        assertEquals(2L, gitMirror.collector.getValue(contributors));
+        assertEquals(1L, gitMirror.collector.getValue(tags));
+
+        commit("Alice@example.com");
+        commit("carol@example.com");
+        git("tag", "1.1.0");
+        gitMirror.collector.refresh();
+        assertEquals(4L, gitMirror.collector.getValue(commits));
+        assertEquals(3L, gitMirror.collector.getValue(contributors));
+        assertEquals(2L, gitMirror.collector.getValue(tags));
+
+        // rewritten history is counted from scratch
+        git("reset", "--quiet", "--hard", "HEAD~3");
+        commit("dave@example.com");
+        gitMirror.collector.refresh();
+        assertEquals(2L, gitMirror.collector.getValue(commits));
+        assertEquals(2L, gitMirror.collector.getValue(contributors));
+    }
+
+    @Test
+    public void testFailedFetchKeepsValues() throws Exception {
+        MetricID commits = gitMirror.register(registry, metadata("gh_repo_commits"), "quarkusio/quarkus",
+                GHGitMirror.Mirror::getCommits);
+        gitMirror.collector.refresh();
+        assertEquals(2L, gitMirror.collector.getValue(commits));
+
+        gitMirror.gitUrl = root.resolve("missing").toUri().toString();
+        MetricID missing = gitMirror.register(registry, metadata("gh_repo_tags"), "quarkusio/missing",
+                GHGitMirror.Mirror::getTags);
+        gitMirror.collector.refresh();
+        assertEquals(2L, gitMirror.collector.getValue(commits));
+        assertEquals(0, gitMirror.collector.getValue(missing));
+    }
+
+    @Test
+    public void testFailedCountDoesNotDrift() throws Exception {
+        MetricID commits = gitMirror.register(registry, metadata("gh_repo_commits"), "quarkusio/quarkus",
+                GHGitMirror.Mirror::getCommits);
+        MetricID contributors = gitMirror.register(registry, metadata("gh_repo_contributors"), "quarkusio/quarkus",
+                GHGitMirror.Mirror::getContributors);
+        gitMirror.collector.refresh();
+
+        commit("carol@example.com");
+        commit("dave@example.com");
+        // new commits are counted, but listing of their authors fails
+        failingCommand = "log";
+        gitMirror.collector.refresh();
+        assertEquals(2L, gitMirror.collector.getValue(commits));
+        assertEquals(2L, gitMirror.collector.getValue(contributors));
+
+        failingCommand = null;
+        gitMirror.collector.refresh();
+        assertEquals(4L, gitMirror.collector.getValue(commits));
+        assertEquals(4L, gitMirror.collector.getValue(contributors));
+    }
+
+    @Test
+    public void testCloneRunsInBackground() throws Exception {
+        ConcurrentLinkedQueue<Runnable> clones = new ConcurrentLinkedQueue<>();
+        gitMirror.cloneExecutor = clones::add;
+        MetricID commits = gitMirror.register(registry, metadata("gh_repo_commits"), "quarkusio/quarkus",
+                GHGitMirror.Mirror::getCommits);
+
+        gitMirror.collector.refresh();
+        assertEquals(1, clones.size());
+        assertEquals(0, gitMirror.collector.getValue(commits));
+        gitMirror.collector.refresh();
+        assertEquals(1, clones.size(), "Running clone must not be started again");
+
+        clones.poll().run();
+        gitMirror.collector.refresh();
+        assertEquals(2L, gitMirror.collector.getValue(commits));
+    }
+
+    private void commit(String author) throws Exception {
+        Files.writeString(source.resolve("file.txt"), author + System.nanoTime());
+        git("add", "file.txt");
+        git("-c", "user.name=Test", "-c", "user.email=" + author, "commit", "--quiet", "-m", "Change by " + author);
+    }
+
+    private void git(String... arguments) throws Exception {
+        List<String> command = new ArrayList<>(List.of("git"));
+        command.addAll(List.of(arguments));
+        Process process = new ProcessBuilder(command).directory(source.toFile()).inheritIO().start();
+        assertEquals(0, process.waitFor(), "git " + String.join(" ", arguments));
+    }
+
+    private static Metadata metadata(String name) {
+        return new ExtendedMetadataBuilder()
+                .withName(name)
+                .withType(MetricType.GAUGE)
+                .withDescription(name)
+                .build();
+    }
+}
@@ -0,0 +1,235 @@
+package io.quarkus.qe.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import io.smallrye.metrics.ExtendedMetadataBuilder;
+import io.smallrye.metrics.MetricRegistries;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricID;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.Tag;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Seed and delta sync of the issue index against local stub
+ */
+public class GHIssueIndexTest {
+
+    private static final String RECENT = Instant.now().minusSeconds(3600).toString();
+
+    // small pages, so listings of few issues have more pages
+    private static final int PAGE_SIZE = 3;
+
+    private HttpServer server;
+    private final List<String> queries = new CopyOnWriteArrayList<>();
+    // issues of the repository by number, listed by updated_at like GitHub does
+    private final Map<Integer, StubIssue> issues = new ConcurrentHashMap<>();
+    private volatile int failedQuery;
+    private volatile Runnable afterQuery = () -> {
+    };
+    private GHIssueIndex index;
+    private final MetricRegistry registry = MetricRegistries.get(MetricRegistry.Type.APPLICATION);
+
+    @BeforeEach
+    public void startStub() throws IOException {
+        put(1, "open", "\"Kind/Bug\"", null, "2024-01-01T00:00:00Z", null);
+        put(2, "closed", "", RECENT, RECENT, RECENT);
+        put(3, "closed", "\"kind/bug\"", null, "2024-01-03T00:00:00Z", "2024-01-04T00:00:00Z");
+        put(4, "open", "\"kind/bug\", \"area/core\"", null, RECENT, null);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/repos/quarkusio/quarkus/issues", exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            queries.add(query);
+            if (queries.size() == failedQuery) {
+                exchange.sendResponseHeaders(500, -1);
+                exchange.close();
+                return;
+            }
+            Matcher since = Pattern.compile("since=([^&]+)").matcher(query);
+            long from = since.find() ? Instant.parse(since.group(1)).getEpochSecond() : 0;
+            Matcher pageParam = Pattern.compile("\\bpage=(\\d+)").matcher(query);
+            int page = pageParam.find() ? Integer.parseInt(pageParam.group(1)) : 1;
+            List<StubIssue> listed = issues.values().stream()
+                    .filter(issue -> issue.updatedAt >= from)
+                    .sorted(Comparator.<StubIssue>comparingLong(issue -> issue.updatedAt).thenComparingInt(issue -> issue.number))
+                    .collect(Collectors.toList());
+            int start = (page - 1) * PAGE_SIZE;
+            List<String> items = new ArrayList<>();
+            for (StubIssue issue : listed.subList(Math.min(start, listed.size()), Math.min(start + PAGE_SIZE, listed.size()))) {
+                items.add(issue.json);
+            }
+            if (start + PAGE_SIZE < listed.size()) {
+                String base = "http://localhost:" + server.getAddress().getPort() + exchange.getRequestURI().getPath()
+                        + "?" + query.replaceAll("&page=\\d+", "") + "&page=";
+                exchange.getResponseHeaders().add("Link", "<" + base + (page + 1) + ">; rel=\"next\"");
+            }
+            byte[] body = ("[" + String.join(",", items) + "]").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("ETag", "\"" + Integer.toHexString(Arrays.hashCode(body)) + "\"");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+            afterQuery.run();
+        });
+        server.start();
+
+        GHMetricsCollector collector = new GHMetricsCollector();
+        collector.config = ConfigProvider.getConfig();
+        collector.init();
+        index = new GHIssueIndex();
+        index.enabled = true;
+        index.collector = collector;
+        index.ghClient = GHRepositoryGraphQLMetricsTest.stubClient("http://localhost:" + server.getAddress().getPort());
+    }
+
+    @AfterEach
+    public void stopStub() {
+        server.stop(0);
+        MetricRegistries.dropAll();
+    }
+
+    @Test
+    public void testCountsFollowDeltas() {
+        Tag repo = new Tag("repo", "quarkusio/quarkus");
+        MetricID openBugs = index.register(registry, metadata("gh_repo_open_issues"), "quarkusio/quarkus",
+                repositoryIndex -> repositoryIndex.count(false, true, "kind/bug"), repo, new Tag("label", "kind/bug"));
+        MetricID closedBugs = index.register(registry, metadata("gh_repo_closed_issues"), "quarkusio/quarkus",
+                repositoryIndex -> repositoryIndex.count(false, false, "kind/bug"), repo, new Tag("label", "kind/bug"));
+        MetricID mergedLast24h = index.register(registry, metadata("gh_repo_merged_prs_last_24h"), "quarkusio/quarkus",
+                repositoryIndex -> repositoryIndex.countSince(true, "merged", Instant.now().minusSeconds(86400).getEpochSecond()), repo);
+        GHIssueIndex.LabelFilter filter = GHIssueIndex.LabelFilter.parse("label:kind/bug -label:area/core");
+        MetricID customBugs = index.register(registry, metadata("gh_repo_custom_issues"), "quarkusio/quarkus",
+                repositoryIndex -> repositoryIndex.count(false, true, filter), repo);
+
+        index.collector.refresh();
+        // first page by number, the rest since updated_at of its last record
+        assertEquals(2, queries.size(), "Seed reads all pages");
+        assertTrue(queries.get(1).contains("since=" + RECENT.substring(0, 19)), queries.get(1));
+        assertEquals(Long.valueOf(2), index.collector.getValue(openBugs));
+        assertEquals(Long.valueOf(1), index.collector.getValue(closedBugs));
+        assertEquals(Long.valueOf(1), index.collector.getValue(mergedLast24h));
+        assertEquals(Long.valueOf(1), index.collector.getValue(customBugs));
+        assertEquals(4L, index.getRecordCount());
+        assertEquals(0, index.ghClient.getResponseCache().size(), "Pages of the seed must not be cached");
+
+        // issue 1 was closed, delta starts at the newest updated_at of the seed
+        put(1, "closed", "\"kind/bug\"", null, Instant.now().toString(), Instant.now().toString());
+        index.collector.refresh();
+        assertEquals(3, queries.size());
+        assertTrue(queries.get(2).contains("since=" + Instant.ofEpochSecond(Instant.parse(RECENT).getEpochSecond()
+                - GHIssueIndex.SINCE_OVERLAP_SECONDS)), queries.get(2));
+        assertEquals(Long.valueOf(1), index.collector.getValue(openBugs));
+        assertEquals(Long.valueOf(2), index.collector.getValue(closedBugs));
+        assertEquals(Long.valueOf(0), index.collector.getValue(customBugs));
+        assertEquals(4L, index.getRecordCount());
+        assertEquals(1, index.ghClient.getResponseCache().size(), "First page of deltas is cached");
+
+        index.unregister(metricID -> true);
+        assertEquals(0L, index.getRecordCount());
+    }
+
+    @Test
+    public void testFailedSeedContinuesFromLastPage() {
+        MetricID openBugs = index.register(registry, metadata("gh_repo_open_issues"), "quarkusio/quarkus",
+                repositoryIndex -> repositoryIndex.count(false, true, "kind/bug"));
+        failedQuery = 2;
+        index.collector.refresh();
+        assertEquals(2, queries.size());
+        assertEquals(0, index.collector.getValue(openBugs), "Partial seed must not be reported");
+        assertEquals(3L, index.getRecordCount(), "Records of the first page are kept");
+
+        index.collector.refresh();
+        assertEquals(3, queries.size());
+        assertTrue(queries.get(2).contains("since="), "Seed must not start from the first page again");
+        assertEquals(Long.valueOf(2), index.collector.getValue(openBugs));
+        assertEquals(4L, index.getRecordCount());
+    }
+
+    @Test
+    public void testIssueUpdatedWhileSeedIsRead() {
+        put(5, "open", "\"kind/bug\"", null, Instant.now().minusSeconds(60).toString(), null);
+        MetricID openBugs = index.register(registry, metadata("gh_repo_open_issues"), "quarkusio/quarkus",
+                repositoryIndex -> repositoryIndex.count(false, true, "kind/bug"));
+        // issue 1 of the first page moves to the end of the listing, issue 4 moves to the first page
+        afterQuery = () -> {
+            if (queries.size() == 1) {
+                put(1, "closed", "\"kind/bug\"", null, Instant.now().toString(), Instant.now().toString());
+            }
+        };
+        index.collector.refresh();
+        assertEquals(5L, index.getRecordCount(), "Shifted issue must not be skipped");
+        assertEquals(Long.valueOf(2), index.collector.getValue(openBugs));
+    }
+
+    @Test
+    public void testLabelFilter() {
+        GHIssueIndex.LabelFilter filter = GHIssueIndex.LabelFilter.parse("label:kind/bug -label:\"good first issue\"");
+        assertEquals(List.of("kind/bug"), filter.included);
+        assertEquals(List.of("good first issue"), filter.excluded);
+        assertNull(GHIssueIndex.LabelFilter.parse("label:kind/bug author:someone"));
+        assertNull(GHIssueIndex.LabelFilter.parse("label:kind/bug,kind/enhancement"));
+        assertNull(GHIssueIndex.LabelFilter.parse("label:kind/bug OR label:kind/enhancement"));
+        assertNull(GHIssueIndex.LabelFilter.parse("(label:kind/bug)"));
+    }
+
+    private void put(int number, String state, String labels, String mergedAt, String updatedAt, String closedAt) {
+        issues.put(number, new StubIssue(number, Instant.parse(updatedAt).getEpochSecond(),
+                issue(number, state, labels, mergedAt, updatedAt, closedAt)));
+    }
+
+    private static String issue(int number, String state, String labels, String mergedAt, String updatedAt, String closedAt) {
+        List<String> labelObjects = new ArrayList<>();
+        for (String label : labels.split(",")) {
+            if (!label.isBlank()) {
+                labelObjects.add("{\"id\": 1, \"name\": " + label.trim() + "}");
+            }
+        }
+        return "{\"number\": " + number + ", \"state\": \"" + state + "\", \"labels\": [" + String.join(",", labelObjects) + "]," +
+                " \"created_at\": \"2024-01-01T00:00:00Z\", \"updated_at\": \"" + updatedAt + "\"," +
+                " \"closed_at\": " + (closedAt == null ? "null" : "\"" + closedAt + "\"") +
+                (mergedAt == null ? "" : ", \"pull_request\": {\"url\": \"x\", \"merged_at\": \"" + mergedAt + "\"}") + "}";
+    }
+
+    private static Metadata metadata(String name) {
+        return new ExtendedMetadataBuilder()
+                .withName(name)
+                .withType(MetricType.GAUGE)
+                .withDescription(name)
+                .build();
+    }
+
+    private static class StubIssue {
+        final int number;
+        final long updatedAt;
+        final String json;
+
+        StubIssue(int number, long updatedAt, String json) {
+            this.number = number;
+            this.updatedAt = updatedAt;
+            this.json = json;
+        }
+    }
+}
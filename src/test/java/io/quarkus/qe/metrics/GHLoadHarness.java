@@ -0,0 +1,157 @@
+package io.quarkus.qe.metrics;
+
+import io.smallrye.metrics.exporters.OpenMetricsExporter;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Load test of the exporter against {@link GHSimulator}
+ *
+ * Registers the given number of repositories, runs several refreshes while scraper threads render /metrics
+ * and the pre-rendered exposition in a loop, then reports API calls per refresh, requests per second and scrape
+ * latency percentiles.
+ *
+ * Run with: java -cp target/classes:target/test-classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *   io.quarkus.qe.metrics.GHLoadHarness --repositories=1000 --level=ADVANCED --refreshes=5 --scrapers=4 --latency=20ms
+ */
+public class GHLoadHarness {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        int repositories = Integer.parseInt(options.getOrDefault("repositories", "1000"));
+        GitHubMetrics.GHDetailsLevel level = GitHubMetrics.GHDetailsLevel.valueOf(options.getOrDefault("level", "BASE"));
+        int refreshes = Integer.parseInt(options.getOrDefault("refreshes", "5"));
+        int scrapers = Integer.parseInt(options.getOrDefault("scrapers", "4"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "64"));
+        Duration latency = duration(options.getOrDefault("latency", "20ms"));
+        // counts change between refreshes, otherwise all requests after the first refresh are answered with 304
+        boolean changing = Boolean.parseBoolean(options.getOrDefault("changing", "true"));
+
+        try (GHSimulator simulator = new GHSimulator(0, Math.max(32, concurrency))
+                .latency(latency)
+                .coreLimit(Integer.parseInt(options.getOrDefault("core-limit", String.valueOf(Integer.MAX_VALUE))), Duration.ofHours(1))
+                .searchLimit(Integer.parseInt(options.getOrDefault("search-limit", String.valueOf(Integer.MAX_VALUE))), Duration.ofMinutes(1))
+                .secondaryLimitEvery(Integer.parseInt(options.getOrDefault("secondary-limit-every", "0")));
+             GHExporterFixture exporter = new GHExporterFixture(simulator.getUrl(), concurrency)) {
+
+            System.out.printf("%d repositories at %s level, %d refreshes, %d scrapers, refresh concurrency %d, API latency %s%n",
+                    repositories, level, refreshes, scrapers, concurrency, latency);
+            exporter.registerRepositories(repositories, level);
+            System.out.printf("%d series registered%n", exporter.registry.getGauges().size());
+
+            AtomicBoolean running = new AtomicBoolean(true);
+            List<long[]> metricsLatencies = new ArrayList<>();
+            List<long[]> expositionLatencies = new ArrayList<>();
+            CountDownLatch scrapersDone = new CountDownLatch(scrapers);
+            for (int i = 0; i < scrapers; i++) {
+                LatencyRecorder metrics = new LatencyRecorder();
+                LatencyRecorder exposition = new LatencyRecorder();
+                Thread scraper = new Thread(() -> {
+                    OpenMetricsExporter openMetricsExporter = new OpenMetricsExporter();
+                    while (running.get()) {
+                        long start = System.nanoTime();
+                        openMetricsExporter.exportOneScope(MetricRegistry.Type.APPLICATION);
+                        metrics.record(System.nanoTime() - start);
+                        start = System.nanoTime();
+                        exporter.exposition.get();
+                        exposition.record(System.nanoTime() - start);
+                    }
+                    synchronized (metricsLatencies) {
+                        metricsLatencies.add(metrics.toArray());
+                        expositionLatencies.add(exposition.toArray());
+                    }
+                    scrapersDone.countDown();
+                }, "gh-load-scraper-" + i);
+                scraper.setDaemon(true);
+                scraper.start();
+            }
+
+            System.out.println("refresh  duration ms  API calls  requests/s  304  403  calls by endpoint");
+            for (int i = 1; i <= refreshes; i++) {
+                simulator.resetStats();
+                long start = System.nanoTime();
+                exporter.collector.refresh();
+                double seconds = (System.nanoTime() - start) / 1e9;
+                long calls = simulator.getRequestCount();
+                System.out.printf("%7d  %11.0f  %9d  %10.0f  %3d  %3d  %s%n", i, seconds * 1000, calls, calls / seconds,
+                        simulator.getNotModifiedCount(), simulator.getRateLimitedCount(), simulator.getRequestCounts());
+                if (changing) {
+                    simulator.nextGeneration();
+                }
+            }
+            running.set(false);
+            scrapersDone.await();
+
+            report("/metrics render", metricsLatencies);
+            report("pre-rendered exposition", expositionLatencies);
+        }
+    }
+
+    private static void report(String name, List<long[]> latencies) {
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        if (all.length == 0) {
+            return;
+        }
+        System.out.printf("%-24s %7d scrapes  p50 %8.3f ms  p90 %8.3f ms  p99 %8.3f ms  max %8.3f ms%n", name, all.length,
+                percentile(all, 0.5), percentile(all, 0.9), percentile(all, 0.99), all[all.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)] / 1e6;
+    }
+
+    /**
+     * Parse --key=value arguments
+     */
+    static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+
+    /**
+     * Parse durations like 50ms, 2s or 1m
+     */
+    static Duration duration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        switch (value.charAt(value.length() - 1)) {
+            case 's':
+                return Duration.ofSeconds(amount);
+            case 'm':
+                return Duration.ofMinutes(amount);
+            default:
+                throw new IllegalArgumentException("Unsupported duration " + value);
+        }
+    }
+
+    private static class LatencyRecorder {
+        private long[] values = new long[1024];
+        private int size;
+
+        void record(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package io.quarkus.qe.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Single-flight loading and stale values of repository cache
+ */
+public class GHLoadingCacheTest {
+
+    @Test
+    public void testConcurrentCallersShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        GHLoadingCache<String> cache = new GHLoadingCache<>(key -> {
+            loads.incrementAndGet();
+            await(loading);
+            return key.toUpperCase();
+        }, 60_000, 0.1, 10);
+
+        List<Thread> threads = new ArrayList<>();
+        List<String> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                String value = cache.get("quarkusio/quarkus");
+                synchronized (results) {
+                    results.add(value);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        Thread.sleep(200);
+        loading.countDown();
+        for (Thread thread : threads) {
+            thread.join(5_000);
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(8, results.size());
+        assertTrue(results.stream().allMatch("QUARKUSIO/QUARKUS"::equals));
+        assertEquals("QUARKUSIO/QUARKUS", cache.get("quarkusio/quarkus"));
+        assertEquals(1L, cache.getLoads());
+    }
+
+    @Test
+    public void testExpiredValueIsServedWhenReloadFails() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        GHLoadingCache<Integer> cache = new GHLoadingCache<>(key -> {
+            if (loads.incrementAndGet() > 1) {
+                throw new IllegalStateException("GitHub unavailable");
+            }
+            return 42;
+        }, 1, 0, 10);
+
+        assertEquals(Integer.valueOf(42), cache.get("quarkusio/quarkus"));
+        Thread.sleep(10);
+        assertEquals(Integer.valueOf(42), cache.get("quarkusio/quarkus"));
+        assertEquals(2, loads.get());
+        assertEquals(1L, cache.getLoadFailures());
+    }
+
+    @Test
+    public void testSizeIsBounded() {
+        GHLoadingCache<String> cache = new GHLoadingCache<>(key -> key, 60_000, 0, 2);
+        cache.get("a");
+        cache.get("b");
+        cache.get("c");
+
+        assertEquals(2, cache.size());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
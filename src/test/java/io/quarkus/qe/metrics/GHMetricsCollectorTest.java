@@ -0,0 +1,131 @@
+package io.quarkus.qe.metrics;
+
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.eclipse.microprofile.metrics.MetricID;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Adaptive refresh intervals and failed fetches
+ */
+public class GHMetricsCollectorTest {
+
+    @Test
+    public void testNextInterval() {
+        assertEquals(60_000L, GHMetricsCollector.nextInterval(0, 60_000, 2, 3_600_000));
+        assertEquals(120_000L, GHMetricsCollector.nextInterval(60_000, 60_000, 2, 3_600_000));
+        assertEquals(3_600_000L, GHMetricsCollector.nextInterval(2_400_000, 60_000, 2, 3_600_000));
+    }
+
+    @Test
+    public void testUnchangedValuesAreRefreshedLessOften() throws InterruptedException {
+        GHMetricsCollector collector = collector(Duration.ofMillis(200), Duration.ofSeconds(10));
+        AtomicLong constantFetches = new AtomicLong();
+        AtomicLong changingFetches = new AtomicLong();
+        collector.registerBatch("constant", GHEndpointFamily.CORE, () -> {
+            constantFetches.incrementAndGet();
+            return Map.of(new MetricID("gh_repo_stars"), 42L);
+        });
+        collector.registerBatch("changing", GHEndpointFamily.CORE,
+                () -> Map.of(new MetricID("gh_repo_open_issues"), changingFetches.incrementAndGet()));
+
+        // first fetch has nothing to compare, second one finds the value unchanged and skips the next period
+        collector.refresh();
+        collector.refresh();
+        collector.refresh();
+        assertEquals(2L, constantFetches.get());
+        assertEquals(3L, changingFetches.get());
+        assertEquals(1, collector.getLastSkippedFetches());
+
+        Thread.sleep(250);
+        collector.refresh();
+        assertEquals(3L, constantFetches.get());
+        assertEquals(4L, changingFetches.get());
+        assertEquals(42L, collector.getValue(new MetricID("gh_repo_stars")));
+    }
+
+    @Test
+    public void testIntervalIsCappedPerMetric() throws InterruptedException {
+        System.setProperty("gh.refresh.adaptive.max-interval.gh_repo_stars", "PT0.15S");
+        try {
+            GHMetricsCollector collector = collector(Duration.ofMillis(100), Duration.ofSeconds(10));
+            AtomicLong fetches = new AtomicLong();
+            collector.registerBatch("stars", GHEndpointFamily.CORE, () -> {
+                fetches.incrementAndGet();
+                return Map.of(new MetricID("gh_repo_stars"), 42L, new MetricID("gh_repo_forks"), 7L);
+            });
+            collector.refresh();
+            collector.refresh();
+            Thread.sleep(110);
+            collector.refresh();
+            assertEquals(3L, fetches.get());
+
+            // 200 ms without the cap
+            Thread.sleep(160);
+            collector.refresh();
+            assertEquals(4L, fetches.get());
+        } finally {
+            System.clearProperty("gh.refresh.adaptive.max-interval.gh_repo_stars");
+        }
+    }
+
+    @Test
+    public void testFailedFetchKeepsLastValue() throws InterruptedException {
+        GHMetricsCollector collector = collector(Duration.ofMillis(100), Duration.ofSeconds(10));
+        MetricID stars = new MetricID("gh_repo_stars");
+        AtomicLong fetches = new AtomicLong();
+        collector.registerBatch("stars", GHEndpointFamily.CORE, () -> {
+            if (fetches.incrementAndGet() > 1) {
+                throw new GHRequestException(GHEndpointFamily.CORE, 502, "Bad gateway");
+            }
+            return Map.of(stars, 42L);
+        });
+        collector.refresh();
+        Thread.sleep(50);
+        collector.refresh();
+
+        assertEquals(2L, fetches.get());
+        assertEquals(42L, collector.getValue(stars), "Outage must not show as a drop to 0");
+        assertTrue(collector.getStalenessSeconds("gh_repo_stars") >= 0.05);
+    }
+
+    @Test
+    public void testExhaustedBudgetDoesNotBlockRefresh() {
+        GHMetricsCollector collector = collector(Duration.ofMillis(100), Duration.ofSeconds(10));
+        GHRateLimits rateLimits = new GHRateLimits();
+        rateLimits.setMaxWait(Duration.ofSeconds(90));
+        String reset = String.valueOf(System.currentTimeMillis() / 1000 + 30);
+        rateLimits.update(GHEndpointFamily.SEARCH, name -> Map.of("X-RateLimit-Remaining", "0",
+                "X-RateLimit-Limit", "30", "X-RateLimit-Reset", reset).get(name));
+        MetricID searched = new MetricID("gh_repo_open_issues");
+        MetricID stars = new MetricID("gh_repo_stars");
+        collector.registerBatch("search", GHEndpointFamily.SEARCH, () -> {
+            rateLimits.acquire(GHEndpointFamily.SEARCH);
+            return Map.of(searched, 1L);
+        });
+        collector.registerBatch("core", GHEndpointFamily.CORE, () -> Map.of(stars, 42L));
+
+        long start = System.currentTimeMillis();
+        collector.refresh();
+        assertTrue(System.currentTimeMillis() - start < 5_000, "Refresh must not wait for the search window reset");
+        assertEquals(42L, collector.getValue(stars));
+        assertEquals(0, collector.getValue(searched));
+    }
+
+    private static GHMetricsCollector collector(Duration period, Duration maxInterval) {
+        GHMetricsCollector collector = new GHMetricsCollector();
+        collector.config = ConfigProvider.getConfig();
+        collector.refreshPeriod = period;
+        collector.adaptive = true;
+        collector.adaptiveMaxInterval = maxInterval;
+        collector.adaptiveBackoff = 2;
+        collector.init();
+        return collector;
+    }
+}
@@ -0,0 +1,73 @@
+package io.quarkus.qe.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Paginated organization listing against local stub
+ */
+public class GHOrganizationDiscoveryTest {
+
+    private HttpServer server;
+
+    @BeforeEach
+    public void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/orgs/quarkusio/repos", exchange -> {
+            String base = "http://localhost:" + server.getAddress().getPort() + "/orgs/quarkusio/repos?per_page=100&type=all";
+            String response;
+            if (exchange.getRequestURI().getQuery().contains("page=2")) {
+                response = "[{\"full_name\": \"quarkusio/quarkus-quickstarts\", \"archived\": false}]";
+            } else {
+                exchange.getResponseHeaders().add("Link", "<" + base + "&page=2>; rel=\"next\", <" + base + "&page=2>; rel=\"last\"");
+                response = "[{\"full_name\": \"quarkusio/quarkus\", \"archived\": false}," +
+                        " {\"full_name\": \"quarkusio/old-extension\", \"archived\": true}]";
+            }
+            byte[] body = response.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testAllPagesAreRead() {
+        GHOrganizationDiscovery discovery = discovery("quarkusio");
+
+        assertEquals(Set.of("quarkusio/quarkus", "quarkusio/quarkus-quickstarts"), discovery.discover());
+    }
+
+    @Test
+    public void testFailedListingIsNotEmptyListing() {
+        GHOrganizationDiscovery discovery = discovery("missing-org");
+
+        assertNull(discovery.discover(), "Tracked repositories must not be removed when the listing fails");
+    }
+
+    private GHOrganizationDiscovery discovery(String organization) {
+        GHOrganizationDiscovery discovery = new GHOrganizationDiscovery();
+        discovery.organizations = Optional.of(List.of(organization));
+        discovery.ghClient = GHRepositoryGraphQLMetricsTest.stubClient("http://localhost:" + server.getAddress().getPort());
+        return discovery;
+    }
+}
@@ -0,0 +1,175 @@
+package io.quarkus.qe.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import org.eclipse.microprofile.metrics.MetricID;
+import org.eclipse.microprofile.metrics.Tag;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Push mode against local OTLP receiver stub
+ */
+public class GHPushExporterTest {
+
+    private HttpServer server;
+    private final List<JsonObject> received = new CopyOnWriteArrayList<>();
+    private final AtomicInteger failuresToSimulate = new AtomicInteger();
+
+    @BeforeEach
+    public void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/v1/metrics", exchange -> {
+            if (failuresToSimulate.getAndDecrement() > 0) {
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+            try (JsonReader reader = Json.createReader(new GZIPInputStream(exchange.getRequestBody()))) {
+                received.add(reader.readObject());
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testOnlyChangedSeriesArePushed() {
+        GHPushExporter exporter = exporter(2);
+        Map<MetricID, Number> snapshot = new HashMap<>();
+        for (int i = 0; i < 5; i++) {
+            snapshot.put(new MetricID("gh_repo_stars", new Tag("repo", "quarkusio/repo" + i)), 100 + i);
+        }
+
+        exporter.push(snapshot);
+        assertEquals(3, received.size(), "5 series are sent in batches of 2");
+        assertEquals(5L, exporter.getSentSeries());
+
+        received.clear();
+        snapshot.put(new MetricID("gh_repo_stars", new Tag("repo", "quarkusio/repo3")), 4328);
+        exporter.push(snapshot);
+
+        assertEquals(1, received.size());
+        JsonObject dataPoint = received.get(0).getJsonArray("resourceMetrics").getJsonObject(0)
+                .getJsonArray("scopeMetrics").getJsonObject(0)
+                .getJsonArray("metrics").getJsonObject(0)
+                .getJsonObject("gauge").getJsonArray("dataPoints").getJsonObject(0);
+        assertEquals("4328", dataPoint.getString("asInt"));
+        assertEquals("quarkusio/repo3", dataPoint.getJsonArray("attributes").getJsonObject(0)
+                .getJsonObject("value").getString("stringValue"));
+        assertEquals(0, exporter.getBufferedSeries());
+    }
+
+    @Test
+    public void testFailedBatchIsRetried() {
+        GHPushExporter exporter = exporter(100);
+        failuresToSimulate.set(2);
+
+        exporter.push(Map.of(new MetricID("gh_repo_forks", new Tag("repo", "quarkusio/quarkus")), 788));
+
+        assertEquals(1, received.size());
+        assertEquals(2L, exporter.getFailedRequests());
+        assertEquals(0, exporter.getBufferedSeries());
+    }
+
+    @Test
+    public void testSeriesAreBufferedWhenRetriesFail() {
+        GHPushExporter exporter = exporter(100);
+        failuresToSimulate.set(10);
+        MetricID forks = new MetricID("gh_repo_forks", new Tag("repo", "quarkusio/quarkus"));
+
+        exporter.push(Map.of(forks, 788));
+        assertEquals(1, exporter.getBufferedSeries());
+
+        failuresToSimulate.set(0);
+        exporter.push(Map.of(forks, 788));
+        assertEquals(1, received.size());
+        assertEquals(0, exporter.getBufferedSeries());
+    }
+
+    @Test
+    public void testPushStopsAtFirstFailedBatch() {
+        GHPushExporter exporter = exporter(2);
+        failuresToSimulate.set(100);
+        Map<MetricID, Number> snapshot = new HashMap<>();
+        for (int i = 0; i < 6; i++) {
+            snapshot.put(new MetricID("gh_repo_stars", new Tag("repo", "quarkusio/repo" + i)), 100 + i);
+        }
+
+        exporter.push(snapshot);
+        assertEquals(3L, exporter.getFailedRequests(), "Only the first batch is tried with 2 retries");
+        assertEquals(6, exporter.getBufferedSeries());
+    }
+
+    @Test
+    public void testRemovedSeriesAreForgotten() {
+        GHPushExporter exporter = exporter(100);
+        MetricID forks = new MetricID("gh_repo_forks", new Tag("repo", "quarkusio/quarkus"));
+        exporter.push(Map.of(forks, 788));
+        exporter.push(Map.of());
+
+        // series registered again is pushed even with the same value
+        exporter.push(Map.of(forks, 788));
+        assertEquals(2, received.size());
+    }
+
+    @Test
+    public void testPushDoesNotBlockRefresh() throws InterruptedException {
+        GHPushExporter exporter = exporter(100);
+        exporter.retryBackoff = Duration.ofMillis(300);
+        failuresToSimulate.set(1);
+        MetricID forks = new MetricID("gh_repo_forks", new Tag("repo", "quarkusio/quarkus"));
+
+        long start = System.currentTimeMillis();
+        exporter.pushAsync(Map.of(forks, 788));
+        // previous push is still waiting for retry, this one is skipped
+        exporter.pushAsync(Map.of(forks, 789));
+        assertTrue(System.currentTimeMillis() - start < 200);
+
+        for (int i = 0; i < 50 && received.isEmpty(); i++) {
+            Thread.sleep(20);
+        }
+        Thread.sleep(50);
+        assertEquals(1, received.size());
+        assertEquals(1L, exporter.getSentSeries());
+        exporter.shutdown();
+    }
+
+    private GHPushExporter exporter(int batchSize) {
+        GHPushExporter exporter = new GHPushExporter();
+        exporter.pushUrl = Optional.of("http://localhost:" + server.getAddress().getPort() + "/v1/metrics");
+        exporter.batchSize = batchSize;
+        exporter.bufferMaxSeries = 1000;
+        exporter.maxRetries = 2;
+        exporter.retryBackoff = Duration.ofMillis(10);
+        exporter.fullInterval = Duration.ofHours(1);
+        exporter.connectTimeout = Duration.ofSeconds(5);
+        exporter.readTimeout = Duration.ofSeconds(5);
+        exporter.collector = new GHMetricsCollector();
+        exporter.init();
+        return exporter;
+    }
+}
@@ -0,0 +1,125 @@
+package io.quarkus.qe.metrics;
+
+import io.smallrye.metrics.ExtendedMetadataBuilder;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricID;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.Tag;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Shared and derived fetches against the local simulator of GitHub API
+ */
+public class GHQueryPlannerTest {
+
+    private GHSimulator simulator;
+    private GHExporterFixture exporter;
+
+    @BeforeEach
+    public void startSimulator() throws IOException {
+        simulator = new GHSimulator();
+        exporter = new GHExporterFixture(simulator.getUrl(), 1);
+    }
+
+    @AfterEach
+    public void stopSimulator() {
+        exporter.close();
+        simulator.close();
+    }
+
+    @Test
+    public void testNormalize() {
+        assertEquals("is:issue+is:open+label:kind/bug+repo:quarkusio/quarkus",
+                GHQueryPlanner.normalize("repo:quarkusio/quarkus+is:issue+is:open+label:kind/bug"));
+        assertEquals("is:issue+is:open+label:kind/bug+repo:quarkusio/quarkus",
+                GHQueryPlanner.normalize(" label:kind/bug state:Open repo:quarkusio/quarkus+type:issue+is:issue "));
+        assertEquals("is:pr+label:\"good first issue\"",
+                GHQueryPlanner.normalize("is:pull-request label:\"good first issue\""));
+    }
+
+    @Test
+    public void testBooleanQueriesKeepTheirOrder() {
+        assertEquals("repo:quarkusio/quarkus+label:a+OR+label:b",
+                GHQueryPlanner.normalize("repo:quarkusio/quarkus label:a OR label:b"));
+        assertEquals("is:issue+(label:a+OR+label:b)+is:issue",
+                GHQueryPlanner.normalize("is:issue (label:a OR label:b) is:issue"));
+        assertEquals("label:a+NOT+label:b", GHQueryPlanner.normalize("label:a NOT label:b"));
+    }
+
+    @Test
+    public void testBooleanQueriesAreNotSharedWithReorderedOnes() throws IOException {
+        exporter.planner.registerSearch(exporter.registry, metadata("gh_repo_open_issues"),
+                "repo:quarkusio/quarkus is:issue label:a OR label:b", new Tag("label", "a-or-b"));
+        exporter.planner.registerSearch(exporter.registry, metadata("gh_repo_open_issues"),
+                "repo:quarkusio/quarkus is:issue label:b OR label:a", new Tag("label", "b-or-a"));
+        exporter.planner.registerSearch(exporter.registry, metadata("gh_repo_open_issues"),
+                "repo:quarkusio/quarkus is:issue label:a OR label:b", new Tag("label", "same"));
+
+        exporter.collector.refresh();
+        assertEquals(Long.valueOf(2), simulator.getRequestCounts().get("search"));
+        assertEquals(2, exporter.planner.getSearchCount());
+        assertEquals(1, exporter.planner.getSharedSavedCalls());
+    }
+
+    @Test
+    public void testEquivalentSearchesAreFetchedOnce() throws IOException {
+        MetricID bugs = exporter.planner.registerSearch(exporter.registry, metadata("gh_repo_open_issues"),
+                "repo:quarkusio/quarkus+is:issue+is:open+label:kind/bug", new Tag("label", "bugs"));
+        MetricID kindBug = exporter.planner.registerSearch(exporter.registry, metadata("gh_repo_open_issues"),
+                "repo:quarkusio/quarkus+is:issue+is:open+label:kind/bug+is:issue", new Tag("label", "kind/bug"));
+
+        exporter.collector.refresh();
+        assertEquals(Long.valueOf(1), simulator.getRequestCounts().get("search"));
+        assertEquals(exporter.collector.getValue(bugs), exporter.collector.getValue(kindBug));
+        assertEquals(1, exporter.planner.getSearchCount());
+        assertEquals(1, exporter.planner.getSharedSavedCalls());
+
+        exporter.planner.unregister(bugs::equals);
+        assertEquals(0, exporter.planner.getSharedSavedCalls());
+        exporter.planner.unregister(kindBug::equals);
+        assertEquals(0, exporter.planner.getSearchCount());
+    }
+
+    @Test
+    public void testOpenIssuesAreDerived() {
+        exporter.registerRepositories(1, GitHubMetrics.GHDetailsLevel.ADVANCED);
+        Tag repo = new Tag("repo", "benchmark/repository-0");
+
+        exporter.collector.refresh();
+        // merged PRs and closed issues, open issues are computed from repository details and open PRs
+        assertEquals(Long.valueOf(2), simulator.getRequestCounts().get("search"));
+        assertEquals(1, exporter.planner.getDerivedSavedCalls());
+        long openIssuesAndPRs = exporter.collector.getValue(new MetricID("gh_repo_open_issues_and_prs", repo)).longValue();
+        long openPRs = exporter.collector.getValue(new MetricID("gh_repo_open_prs", repo)).longValue();
+        assertEquals(Math.max(0, openIssuesAndPRs - openPRs),
+                exporter.collector.getValue(new MetricID("gh_repo_open_issues", repo)).longValue());
+        assertTrue(exporter.collector.getSnapshot().containsKey(new MetricID("gh_repo_open_issues", repo)));
+    }
+
+    @Test
+    public void testDerivedValueWaitsForInputs() throws IOException {
+        MetricID difference = exporter.planner.registerDifference(exporter.registry, metadata("gh_repo_open_issues"),
+                new MetricID("gh_repo_open_issues_and_prs"), new MetricID("gh_repo_open_prs"), "is:issue+is:open");
+        exporter.collector.registerBatch("inputs", GHEndpointFamily.CORE, Map::of);
+
+        exporter.collector.refresh();
+        assertNull(exporter.collector.getSnapshot().get(difference));
+    }
+
+    private static Metadata metadata(String name) {
+        return new ExtendedMetadataBuilder()
+                .withName(name)
+                .withType(MetricType.GAUGE)
+                .withDescription(name)
+                .build();
+    }
+}
@@ -0,0 +1,119 @@
+package io.quarkus.qe.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import org.eclipse.microprofile.metrics.MetricID;
+import org.eclipse.microprofile.metrics.Tag;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * GraphQL backend against local stub GraphQL endpoint
+ */
+public class GHRepositoryGraphQLMetricsTest {
+
+    private static final String RESPONSE = "{\"data\": {" +
+            "\"r0\": {\"c0\": 4328, \"c1\": {\"totalCount\": 925}, \"c2\": {\"totalCount\": 101}, \"c3\": 788," +
+            " \"c4\": {\"totalCount\": 170}, \"c5\": 50593," +
+            " \"c6\": {\"target\": {\"history\": {\"totalCount\": 11016}}}, \"c7\": {\"totalCount\": 57}," +
+            " \"c8\": {\"totalCount\": 2804}, \"c9\": {\"totalCount\": 4621}, \"c10\": {\"totalCount\": 4103}}," +
+            "\"r1\": null}}";
+
+    private HttpServer server;
+    private final AtomicReference<String> receivedQuery = new AtomicReference<>();
+
+    @BeforeEach
+    public void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/graphql", exchange -> {
+            receivedQuery.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            byte[] response = RESPONSE.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(response);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testBatchMapsOntoRestMetricNames() {
+        GHRepositoryGraphQLMetrics graphQLMetrics = new GHRepositoryGraphQLMetrics();
+        graphQLMetrics.ghClient = stubClient("http://localhost:" + server.getAddress().getPort());
+        graphQLMetrics.graphqlUrl = Optional.empty();
+
+        Tag quarkusTag = new Tag("repo", "quarkusio/quarkus");
+        List<GHRepositoryGraphQLMetrics.RepositoryQuery> batch = List.of(
+                graphQLMetrics.repositoryQuery("quarkusio/quarkus", GitHubMetrics.GHDetailsLevel.ADVANCED, quarkusTag),
+                graphQLMetrics.repositoryQuery("quarkusio/missing", GitHubMetrics.GHDetailsLevel.BASE,
+                        new Tag("repo", "quarkusio/missing")));
+
+        Map<MetricID, Number> values = graphQLMetrics.fetchBatch(batch);
+
+        assertTrue(receivedQuery.get().contains("r0: repository(owner: \\\"quarkusio\\\", name: \\\"quarkus\\\")"));
+        assertTrue(receivedQuery.get().contains("r1: repository(owner: \\\"quarkusio\\\", name: \\\"missing\\\")"));
+        assertEquals(4328L, values.get(new MetricID("gh_repo_stars", quarkusTag)));
+        assertEquals(1026L, values.get(new MetricID("gh_repo_open_issues_and_prs", quarkusTag)));
+        assertEquals(170L, values.get(new MetricID("gh_repo_subscribers", quarkusTag)));
+        assertEquals(11016L, values.get(new MetricID("gh_repo_commits", quarkusTag)));
+        assertEquals(925L, values.get(new MetricID("gh_repo_open_issues", quarkusTag)));
+        assertEquals(4621L, values.get(new MetricID("gh_repo_closed_prs", quarkusTag)));
+        assertEquals(12, values.size(), "Repository without data must not produce values");
+    }
+
+    static GHClient stubClient(String apiUrl) {
+        GHClient ghClient = new GHClient();
+        ghClient.apiUrl = apiUrl;
+        ghClient.connectTimeout = Duration.ofSeconds(5);
+        ghClient.readTimeout = Duration.ofSeconds(5);
+        ghClient.cacheMaxEntries = 100;
+        ghClient.linkHeaderCacheMaxAge = Duration.ofMinutes(10);
+        ghClient.circuitBreakerEnabled = true;
+        ghClient.circuitBreakerFailureThreshold = 5;
+        ghClient.circuitBreakerInitialBackoff = Duration.ofMinutes(1);
+        ghClient.circuitBreakerMaxBackoff = Duration.ofMinutes(30);
+        ghClient.tokenPool = tokenPool(apiUrl, "test-token");
+        ghClient.init();
+        return ghClient;
+    }
+
+    static GHTokenPool tokenPool(String apiUrl, String... tokens) {
+        GHTokenPool tokenPool = new GHTokenPool();
+        tokenPool.ghTokens = List.of(tokens);
+        tokenPool.appId = Optional.empty();
+        tokenPool.appPrivateKey = Optional.empty();
+        tokenPool.appInstallationIds = Optional.empty();
+        tokenPool.apiUrl = apiUrl;
+        tokenPool.rateLimitMaxWait = Duration.ZERO;
+        tokenPool.init();
+        return tokenPool;
+    }
+
+    @Test
+    public void testIdenticalSelectionsAreRequestedOnce() {
+        GHRepositoryGraphQLMetrics.RepositoryQuery query = new GHRepositoryGraphQLMetrics()
+                .repositoryQuery("quarkusio/quarkus", GitHubMetrics.GHDetailsLevel.ADVANCED, new Tag("repo", "quarkusio/quarkus"));
+
+        assertEquals(12, query.counts.size());
+        assertEquals(11, query.selections.size());
+    }
+}
@@ -0,0 +1,95 @@
+package io.quarkus.qe.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Counting of GitHub requests by endpoint family, status code, latency and size
+ */
+public class GHRequestStatsTest {
+
+    private HttpServer server;
+
+    @BeforeEach
+    public void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/search/issues", exchange -> {
+            byte[] body = "{\"total_count\": 42, \"items\": []}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.createContext("/repos", exchange -> {
+            exchange.sendResponseHeaders(403, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testRequestsAreCountedPerFamily() throws IOException {
+        String apiUrl = "http://localhost:" + server.getAddress().getPort();
+        GHClient client = GHRepositoryGraphQLMetricsTest.stubClient(apiUrl);
+
+        assertEquals(42, client.extractCountFromJSON(new URL(apiUrl + "/search/issues?q=repo:quarkusio/quarkus")));
+        URL repository = new URL(apiUrl + "/repos/quarkusio/quarkus");
+        assertThrows(GHRequestException.class, () -> client.extractFieldsFromJSON(repository, "forks"));
+
+        GHRequestStats stats = client.getRequestStats();
+        assertEquals(1L, stats.getStatusCount(GHEndpointFamily.SEARCH, "200"));
+        assertEquals(1L, stats.getStatusCount(GHEndpointFamily.CORE, "403"));
+        assertEquals(1L, stats.getCount(GHEndpointFamily.SEARCH));
+        assertEquals(0, stats.getInFlight(GHEndpointFamily.SEARCH));
+        assertEquals(32L, stats.getBytesRead(GHEndpointFamily.SEARCH));
+    }
+
+    @Test
+    public void testLatencyBucketsAreCumulative() {
+        GHRequestStats stats = new GHRequestStats();
+        long start = stats.started(GHEndpointFamily.CORE);
+        stats.completed(GHEndpointFamily.CORE, start - 300_000_000L, 200);
+
+        // 0.3 seconds falls into 0.5 and all bigger buckets
+        assertEquals(0L, stats.getBucketCount(GHEndpointFamily.CORE, 2));
+        assertEquals(1L, stats.getBucketCount(GHEndpointFamily.CORE, 3));
+        assertEquals(1L, stats.getBucketCount(GHEndpointFamily.CORE, GHRequestStats.LATENCY_BUCKETS_SECONDS.length - 1));
+    }
+
+    @Test
+    public void testStatusLabels() {
+        assertEquals("304", GHRequestStats.statusLabel(304));
+        assertEquals("4xx", GHRequestStats.statusLabel(410));
+        assertEquals("5xx", GHRequestStats.statusLabel(502));
+        assertEquals("error", GHRequestStats.statusLabel(-1));
+    }
+
+    @Test
+    public void testBytesReadAreCounted() throws IOException {
+        GHRequestStats stats = new GHRequestStats();
+        try (InputStream body = stats.counting(GHEndpointFamily.GRAPHQL, new ByteArrayInputStream(new byte[1000]))) {
+            body.read();
+            body.readAllBytes();
+        }
+
+        assertEquals(1000L, stats.getBytesRead(GHEndpointFamily.GRAPHQL));
+    }
+}
@@ -0,0 +1,69 @@
+package io.quarkus.qe.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Distribution and rebalancing of repositories across shards
+ */
+public class GHShardRingTest {
+
+    private static final int REPOSITORIES = 10_000;
+
+    @Test
+    public void testRepositoriesAreSpreadEvenly() {
+        GHShardRing ring = new GHShardRing(List.of("shard-0", "shard-1", "shard-2"), 128);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < REPOSITORIES; i++) {
+            counts.merge(ring.nodeOf("org/repo-" + i), 1, Integer::sum);
+        }
+
+        assertEquals(3, counts.size());
+        for (int count : counts.values()) {
+            assertTrue(count > REPOSITORIES / 3 * 0.8 && count < REPOSITORIES / 3 * 1.2, "Uneven distribution " + counts);
+        }
+    }
+
+    @Test
+    public void testAddingShardMovesMinimalRepositories() {
+        GHShardRing three = new GHShardRing(List.of("shard-0", "shard-1", "shard-2"), 128);
+        GHShardRing four = new GHShardRing(List.of("shard-0", "shard-1", "shard-2", "shard-3"), 128);
+
+        int moved = 0;
+        for (int i = 0; i < REPOSITORIES; i++) {
+            String repositoryName = "org/repo-" + i;
+            String before = three.nodeOf(repositoryName);
+            String after = four.nodeOf(repositoryName);
+            if (!before.equals(after)) {
+                moved++;
+                assertEquals("shard-3", after, "Repositories may move only to the new shard");
+            }
+        }
+        assertTrue(moved > REPOSITORIES / 4 * 0.8 && moved < REPOSITORIES / 4 * 1.2, "Moved " + moved + " repositories");
+    }
+
+    @Test
+    public void testShardsAgreeOnOwnership() {
+        int owners = 0;
+        for (int index = 0; index < 3; index++) {
+            GHSharding sharding = new GHSharding();
+            sharding.shardCount = 3;
+            sharding.shardIndex = index;
+            sharding.peers = Optional.empty();
+            sharding.self = Optional.empty();
+            sharding.virtualNodes = 128;
+            sharding.init();
+            if (sharding.owns("quarkusio/quarkus")) {
+                owners++;
+            }
+        }
+        assertEquals(1, owners, "Every repository has exactly one owner");
+    }
+}
@@ -0,0 +1,408 @@
+package io.quarkus.qe.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local simulator of GitHub REST API endpoints used by the exporter, for tests and load tests without real rate limit
+ *
+ * Every repository exists, its counts are derived from its name and change with {@link #nextGeneration()}.
+ * Listings requested with per_page=1 answer with Link header pointing to the last page, search answers with total_count.
+ * Responses carry ETag and X-RateLimit-* headers of the token, conditional requests answered with 304 do not consume
+ * the budget. Exhausted budget is answered with 403, like GitHub does, and every n-th search request can be rejected
+ * with 403 secondary rate limit and Retry-After.
+ *
+ * Run standalone with: java -cp target/classes:target/test-classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *   io.quarkus.qe.metrics.GHSimulator --port=9000 --latency=50ms --core-limit=5000 --search-limit=30
+ */
+public class GHSimulator implements AutoCloseable {
+
+    static {
+        // responses are small, Nagle's algorithm would delay every one of them by the delayed ACK of the client
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private volatile Duration latency = Duration.ZERO;
+    private volatile int coreLimit = 5000;
+    private volatile int searchLimit = 30;
+    private volatile Duration coreWindow = Duration.ofHours(1);
+    private volatile Duration searchWindow = Duration.ofMinutes(1);
+    private volatile int secondaryLimitEvery;
+    private volatile int organizationRepositories = 100;
+    private volatile int generation;
+    // Authorization headers answered with 401
+    private final Set<String> invalidTokens = ConcurrentHashMap.newKeySet();
+
+    // budget of every token and resource
+    private final Map<String, Budget> budgets = new ConcurrentHashMap<>();
+    private final AtomicLong searchRequests = new AtomicLong();
+
+    private final Map<String, LongAdder> requests = new ConcurrentHashMap<>();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+
+    public GHSimulator() throws IOException {
+        this(0, 32);
+    }
+
+    public GHSimulator(int port, int threads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        executor = Executors.newFixedThreadPool(threads);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public GHSimulator latency(Duration latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    public GHSimulator coreLimit(int limit, Duration window) {
+        this.coreLimit = limit;
+        this.coreWindow = window;
+        budgets.clear();
+        return this;
+    }
+
+    public GHSimulator searchLimit(int limit, Duration window) {
+        this.searchLimit = limit;
+        this.searchWindow = window;
+        budgets.clear();
+        return this;
+    }
+
+    /**
+     * Answer all requests with the token by 401 Bad credentials
+     */
+    public GHSimulator invalidToken(String token) {
+        invalidTokens.add("token " + token);
+        return this;
+    }
+
+    /**
+     * Reject every n-th search request with 403 secondary rate limit, 0 disables it
+     */
+    public GHSimulator secondaryLimitEvery(int every) {
+        this.secondaryLimitEvery = every;
+        return this;
+    }
+
+    public GHSimulator organizationRepositories(int count) {
+        this.organizationRepositories = count;
+        return this;
+    }
+
+    /**
+     * Change all counts, so cached ETags do not match anymore
+     */
+    public void nextGeneration() {
+        generation++;
+    }
+
+    /**
+     * Number of requests per endpoint (repos, pulls, commits, contributors, tags, search, orgs, rate_limit, root)
+     */
+    public Map<String, Long> getRequestCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        requests.forEach((endpoint, count) -> counts.put(endpoint, count.sum()));
+        return counts;
+    }
+
+    public long getRequestCount() {
+        return requests.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public long getNotModifiedCount() {
+        return notModified.sum();
+    }
+
+    public long getRateLimitedCount() {
+        return rateLimited.sum();
+    }
+
+    public void resetStats() {
+        requests.clear();
+        notModified.reset();
+        rateLimited.reset();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!latency.isZero()) {
+                try {
+                    Thread.sleep(latency.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            String path = exchange.getRequestURI().getPath();
+            String query = exchange.getRequestURI().getRawQuery();
+            String[] segments = path.substring(1).split("/");
+            String endpoint = endpoint(segments);
+            requests.computeIfAbsent(endpoint, e -> new LongAdder()).increment();
+            if (invalidTokens.contains(exchange.getRequestHeaders().getFirst("Authorization"))) {
+                respond(exchange, 401, "{\"message\": \"Bad credentials\"}");
+                return;
+            }
+
+            if ("rate_limit".equals(endpoint)) {
+                // does not count against the limit
+                respond(exchange, 200, rateLimitBody(exchange));
+                return;
+            }
+            boolean search = "search".equals(endpoint);
+            if (search && secondaryLimitEvery > 0 && searchRequests.incrementAndGet() % secondaryLimitEvery == 0) {
+                rateLimited.increment();
+                exchange.getResponseHeaders().add("Retry-After", "60");
+                respond(exchange, 403, "{\"message\": \"You have exceeded a secondary rate limit. Please wait a few minutes before you try again.\"}");
+                return;
+            }
+
+            String body;
+            int count = 0;
+            switch (endpoint) {
+                case "root":
+                    body = "{\"current_user_url\": \"" + getUrl() + "/user\"}";
+                    break;
+                case "repos":
+                    body = repositoryBody(segments[1] + "/" + segments[2]);
+                    break;
+                case "search":
+                    body = "{\"total_count\": " + count(query, "search") + ", \"incomplete_results\": false, \"items\": []}";
+                    break;
+                case "orgs":
+                    count = organizationRepositories;
+                    body = organizationBody(segments[1], param(query, "page", 1), param(query, "per_page", 30));
+                    break;
+                case "pulls":
+                case "commits":
+                case "contributors":
+                case "tags":
+                    // all pages of the listing have the same count
+                    count = count(path + "?" + withoutPage(query), endpoint);
+                    body = count == 0 ? "[]" : "[{}]";
+                    break;
+                default:
+                    respond(exchange, 404, "{\"message\": \"Not Found\"}");
+                    return;
+            }
+
+            String etag = "\"" + Integer.toHexString((body + count + generation).hashCode()) + "\"";
+            exchange.getResponseHeaders().add("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.increment();
+                rateLimitHeaders(exchange, search, false);
+                respond(exchange, 304, null);
+                return;
+            }
+            if (!rateLimitHeaders(exchange, search, !"root".equals(endpoint))) {
+                rateLimited.increment();
+                respond(exchange, 403, "{\"message\": \"API rate limit exceeded\"}");
+                return;
+            }
+            if (count > 0 && !"search".equals(endpoint)) {
+                linkHeader(exchange, path, query, count);
+            }
+            respond(exchange, 200, body);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static String endpoint(String[] segments) {
+        if (segments.length == 0 || segments[0].isEmpty()) {
+            return "root";
+        }
+        switch (segments[0]) {
+            case "rate_limit":
+                return "rate_limit";
+            case "search":
+                return "search";
+            case "orgs":
+                return segments.length == 3 && "repos".equals(segments[2]) ? "orgs" : "unknown";
+            case "repos":
+                if (segments.length == 3) {
+                    return "repos";
+                }
+                return segments.length == 4 ? segments[3] : "unknown";
+            default:
+                return "unknown";
+        }
+    }
+
+    /**
+     * Consume one request from the budget of the token, returns false when the budget is exhausted
+     *
+     * Requests which do not consume the budget (API root) are rejected once it is exhausted as well.
+     */
+    private boolean rateLimitHeaders(HttpExchange exchange, boolean search, boolean consume) {
+        String token = String.valueOf(exchange.getRequestHeaders().getFirst("Authorization"));
+        Budget budget = budgets.computeIfAbsent(token + (search ? "#search" : "#core"),
+                key -> new Budget(search ? searchLimit : coreLimit, search ? searchWindow : coreWindow));
+        int remaining = consume ? budget.consume() : budget.remaining();
+        exchange.getResponseHeaders().add("X-RateLimit-Limit", String.valueOf(budget.limit));
+        exchange.getResponseHeaders().add("X-RateLimit-Remaining", String.valueOf(Math.max(0, remaining)));
+        exchange.getResponseHeaders().add("X-RateLimit-Reset", String.valueOf(budget.resetMillis / 1000));
+        exchange.getResponseHeaders().add("X-RateLimit-Resource", search ? "search" : "core");
+        return consume ? remaining >= 0 : remaining > 0;
+    }
+
+    private String rateLimitBody(HttpExchange exchange) {
+        String token = String.valueOf(exchange.getRequestHeaders().getFirst("Authorization"));
+        Budget core = budgets.computeIfAbsent(token + "#core", key -> new Budget(coreLimit, coreWindow));
+        Budget search = budgets.computeIfAbsent(token + "#search", key -> new Budget(searchLimit, searchWindow));
+        return "{\"resources\": {\"core\": " + core.toJson() + ", \"search\": " + search.toJson() + "}, \"rate\": " + core.toJson() + "}";
+    }
+
+    private void linkHeader(HttpExchange exchange, String path, String query, int count) {
+        int perPage = param(query, "per_page", 30);
+        int page = param(query, "page", 1);
+        int last = (count + perPage - 1) / perPage;
+        if (page >= last) {
+            return;
+        }
+        String base = getUrl() + path + "?" + withoutPage(query) + "&page=";
+        exchange.getResponseHeaders().add("Link", "<" + base + (page + 1) + ">; rel=\"next\", <" + base + last + ">; rel=\"last\"");
+    }
+
+    private String repositoryBody(String repositoryName) {
+        return "{\"full_name\": \"" + repositoryName + "\", \"archived\": false" +
+                ", \"stargazers_count\": " + count(repositoryName, "stargazers") +
+                ", \"open_issues_count\": " + count(repositoryName, "open_issues") +
+                ", \"forks_count\": " + count(repositoryName, "forks") +
+                ", \"subscribers_count\": " + count(repositoryName, "subscribers") +
+                ", \"size\": " + count(repositoryName, "size") + "}";
+    }
+
+    private String organizationBody(String organization, int page, int perPage) {
+        StringBuilder body = new StringBuilder("[");
+        int from = (page - 1) * perPage;
+        int to = Math.min(organizationRepositories, from + perPage);
+        for (int i = from; i < to; i++) {
+            body.append(i > from ? ", " : "")
+                    .append("{\"full_name\": \"").append(organization).append("/repository-").append(i)
+                    .append("\", \"archived\": false}");
+        }
+        return body.append("]").toString();
+    }
+
+    /**
+     * Stable count of the item, changes only with the generation
+     */
+    private int count(String item, String kind) {
+        return Math.floorMod((item + "#" + kind + "#" + generation).hashCode(), 5000);
+    }
+
+    private static String withoutPage(String query) {
+        return query == null ? "" : query.replaceAll("&?\\bpage=\\d+", "");
+    }
+
+    private static int param(String query, String name, int defaultValue) {
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith(name + "=")) {
+                    return Integer.parseInt(parameter.substring(name.length() + 1));
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static class Budget {
+        final int limit;
+        final long windowMillis;
+        long resetMillis;
+        int remaining;
+
+        Budget(int limit, Duration window) {
+            this.limit = limit;
+            this.windowMillis = window.toMillis();
+            this.resetMillis = System.currentTimeMillis() + windowMillis;
+            this.remaining = limit;
+        }
+
+        synchronized int consume() {
+            resetIfElapsed();
+            return remaining > 0 ? --remaining : -1;
+        }
+
+        synchronized int remaining() {
+            resetIfElapsed();
+            return remaining;
+        }
+
+        synchronized String toJson() {
+            resetIfElapsed();
+            return "{\"limit\": " + limit + ", \"used\": " + (limit - remaining) + ", \"remaining\": " + remaining
+                    + ", \"reset\": " + resetMillis / 1000 + "}";
+        }
+
+        private void resetIfElapsed() {
+            long now = System.currentTimeMillis();
+            if (now >= resetMillis) {
+                resetMillis = now + windowMillis;
+                remaining = limit;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = GHLoadHarness.options(args);
+        GHSimulator simulator = new GHSimulator(Integer.parseInt(options.getOrDefault("port", "9000")),
+                Integer.parseInt(options.getOrDefault("threads", "64")))
+                .latency(GHLoadHarness.duration(options.getOrDefault("latency", "0ms")))
+                .coreLimit(Integer.parseInt(options.getOrDefault("core-limit", "5000")), Duration.ofHours(1))
+                .searchLimit(Integer.parseInt(options.getOrDefault("search-limit", "30")), Duration.ofMinutes(1))
+                .secondaryLimitEvery(Integer.parseInt(options.getOrDefault("secondary-limit-every", "0")))
+                .organizationRepositories(Integer.parseInt(options.getOrDefault("org-repositories", "100")));
+        System.out.println("GitHub API simulator listening on " + simulator.getUrl());
+        while (true) {
+            Thread.sleep(10_000);
+            System.out.println(simulator.getRequestCounts() + ", 304: " + simulator.getNotModifiedCount()
+                    + ", 403: " + simulator.getRateLimitedCount());
+        }
+    }
+}
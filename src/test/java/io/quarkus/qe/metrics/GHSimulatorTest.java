@@ -0,0 +1,187 @@
+package io.quarkus.qe.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * GitHub client against the local simulator of GitHub API
+ */
+public class GHSimulatorTest {
+
+    private GHSimulator simulator;
+    private GHClient client;
+
+    @BeforeEach
+    public void startSimulator() throws IOException {
+        simulator = new GHSimulator();
+        client = GHRepositoryGraphQLMetricsTest.stubClient(simulator.getUrl());
+    }
+
+    @AfterEach
+    public void stopSimulator() {
+        simulator.close();
+    }
+
+    @Test
+    public void testCountsAreStableUntilNextGeneration() throws IOException {
+        URL pulls = new URL(simulator.getUrl() + "/repos/quarkusio/quarkus/pulls?per_page=1");
+        URL search = new URL(simulator.getUrl() + "/search/issues?q=repo:quarkusio/quarkus+is:issue+is:open&per_page=1");
+        int pullsCount = client.extractCountFromLinkHeader(pulls);
+        int searchCount = client.extractCountFromJSON(search);
+        assertNotNull(client.extractFieldsFromJSON(new URL(simulator.getUrl() + "/repos/quarkusio/quarkus"),
+                GHRepositoryBaseMetrics.GHRepository.FIELDS));
+
+        assertEquals(searchCount, client.extractCountFromJSON(search));
+        assertEquals(1L, simulator.getNotModifiedCount(), "Second request must be answered with 304 Not Modified");
+
+        simulator.nextGeneration();
+        assertNotEquals(searchCount, client.extractCountFromJSON(search));
+        assertTrue(pullsCount > 1);
+        assertEquals(Long.valueOf(1), simulator.getRequestCounts().get("pulls"));
+        assertEquals(Long.valueOf(3), simulator.getRequestCounts().get("search"));
+    }
+
+    @Test
+    public void testUncachedCountIsNotKept() throws IOException {
+        URL search = new URL(simulator.getUrl() + "/search/issues?q=repo:quarkusio/quarkus+is:issue+created:>2021-01-01T10:00:00&per_page=1");
+        int cached = client.getResponseCache().size();
+        int count = client.extractUncachedCountFromJSON(search);
+
+        assertEquals(count, client.extractUncachedCountFromJSON(search));
+        assertEquals(cached, client.getResponseCache().size(), "Uncached response must not take an entry of the cache");
+        assertEquals(0L, simulator.getNotModifiedCount(), "Uncached request must not be conditional");
+    }
+
+    @Test
+    public void testExhaustedBudgetIsRejected() throws IOException {
+        simulator.searchLimit(2, Duration.ofMinutes(1));
+        client.extractCountFromJSON(new URL(simulator.getUrl() + "/search/issues?q=first"));
+        client.extractCountFromJSON(new URL(simulator.getUrl() + "/search/issues?q=second"));
+        assertEquals(0, client.getTokenPool().getRemaining(GHEndpointFamily.SEARCH));
+
+        // another replica with the same token does not know the budget is exhausted
+        GHClient otherClient = GHRepositoryGraphQLMetricsTest.stubClient(simulator.getUrl());
+        URL third = new URL(simulator.getUrl() + "/search/issues?q=third");
+        GHRequestException failure = assertThrows(GHRequestException.class, () -> otherClient.extractCountFromJSON(third));
+        assertEquals(403, failure.getStatusCode());
+        // exhausted budget of the token is not a reason to stop other tokens
+        assertEquals(GHCircuitBreaker.State.CLOSED, otherClient.getCircuitBreaker(GHEndpointFamily.SEARCH).getState());
+        assertEquals(1L, simulator.getRateLimitedCount());
+        assertEquals(1L, otherClient.getRequestStats().getStatusCount(GHEndpointFamily.SEARCH, "403"));
+    }
+
+    @Test
+    public void testWaitForResetDoesNotBlockCaller() throws IOException {
+        simulator.searchLimit(1, Duration.ofSeconds(2));
+        client.getTokenPool().getTokens().forEach(token -> token.getRateLimits().setMaxWait(Duration.ofMinutes(1)));
+        client.extractCountFromJSON(new URL(simulator.getUrl() + "/search/issues?q=first"));
+
+        URL second = new URL(simulator.getUrl() + "/search/issues?q=second");
+        CompletableFuture<Integer> rejected = GHRateLimits.failFast(() -> client.extractCountFromJSONAsync(second));
+        CompletionException failure = assertThrows(CompletionException.class, rejected::join);
+        assertTrue(failure.getCause() instanceof GHRateLimitExceededException, "Fail fast mode of the caller is kept");
+
+        long start = System.nanoTime();
+        CompletableFuture<Integer> waiting = client.extractCountFromJSONAsync(second);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), "Caller must not wait for the reset");
+        assertFalse(waiting.isDone());
+        assertTrue(waiting.join() > 0);
+    }
+
+    @Test
+    public void testSecondaryRateLimit() throws IOException {
+        simulator.secondaryLimitEvery(2);
+        client.extractCountFromJSON(new URL(simulator.getUrl() + "/search/issues?q=first"));
+        URL second = new URL(simulator.getUrl() + "/search/issues?q=second");
+        assertThrows(GHRequestException.class, () -> client.extractCountFromJSON(second));
+        assertEquals(1L, simulator.getRateLimitedCount());
+
+        // Retry-After opens the circuit, further searches do not reach GitHub while core endpoints are still used
+        URL third = new URL(simulator.getUrl() + "/search/issues?q=third");
+        assertThrows(GHCircuitOpenException.class, () -> client.extractCountFromJSON(third));
+        assertEquals(Long.valueOf(2), simulator.getRequestCounts().get("search"));
+        assertEquals(1L, client.getCircuitBreaker(GHEndpointFamily.SEARCH).getRejected());
+        assertTrue(client.extractCountFromLinkHeader(new URL(simulator.getUrl() + "/repos/quarkusio/quarkus/pulls?per_page=1")) > 0);
+    }
+
+    @Test
+    public void testTokenValidation() throws IOException {
+        assertTrue(client.isTokenValid(new GHToken("test-token")));
+        simulator.invalidToken("revoked");
+        assertFalse(client.isTokenValid(new GHToken("revoked")), "Rejected token must be evicted");
+
+        // exhausted budget does not make the token invalid, its rate limits wait for the reset
+        simulator.coreLimit(1, Duration.ofHours(1));
+        client.extractCountFromLinkHeader(new URL(simulator.getUrl() + "/repos/quarkusio/quarkus/pulls?per_page=1"));
+        GHToken exhausted = new GHToken("test-token");
+        assertTrue(client.isTokenValid(exhausted));
+        assertEquals(1L, simulator.getRateLimitedCount());
+        assertEquals(0, exhausted.getRateLimits().getRemaining(GHEndpointFamily.CORE));
+    }
+
+    @Test
+    public void testFailedRenewalOfAppToken() {
+        GHToken rejected = new GHToken("app-1", null) {
+            @Override
+            public String getValue() {
+                throw new GHRequestException(GHEndpointFamily.CORE, 401, "Unable to create installation token app-1");
+            }
+        };
+        assertFalse(client.isTokenValid(rejected), "Rejected credentials of the App must evict the token");
+
+        GHToken unreachable = new GHToken("app-2", null) {
+            @Override
+            public String getValue() {
+                throw new GHRequestException(GHEndpointFamily.CORE, "Unable to create installation token app-2",
+                        new IOException("Connection refused"));
+            }
+        };
+        assertThrows(IllegalStateException.class, () -> client.isTokenValid(unreachable),
+                "Unreachable GitHub must be retried");
+    }
+
+    @Test
+    public void testFailedTokenRenewalDuringTrialDoesNotBlockCircuit() throws Exception {
+        client.circuitBreakerFailureThreshold = 1;
+        client.circuitBreakerInitialBackoff = Duration.ofMillis(50);
+        client.init();
+        AtomicBoolean renewalFails = new AtomicBoolean(true);
+        client.getTokenPool().getTokens().set(0, new GHToken("installation") {
+            @Override
+            public String getValue() {
+                if (renewalFails.get()) {
+                    throw new IllegalStateException("Unable to create installation token");
+                }
+                return super.getValue();
+            }
+        });
+        GHCircuitBreaker circuitBreaker = client.getCircuitBreaker(GHEndpointFamily.SEARCH);
+        circuitBreaker.onFailure();
+        Thread.sleep(80);
+        assertEquals(GHCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+        URL search = new URL(simulator.getUrl() + "/search/issues?q=first");
+        assertThrows(IllegalStateException.class, () -> client.extractCountFromJSON(search));
+
+        // trial request was never sent, the next request becomes the trial
+        renewalFails.set(false);
+        assertTrue(client.extractCountFromJSON(search) >= 0);
+        assertEquals(GHCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+}
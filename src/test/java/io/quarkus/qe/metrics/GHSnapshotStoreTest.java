@@ -0,0 +1,81 @@
+package io.quarkus.qe.metrics;
+
+import org.eclipse.microprofile.metrics.MetricID;
+import org.eclipse.microprofile.metrics.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Snapshot saved by one run is loaded by the next one
+ */
+public class GHSnapshotStoreTest {
+
+    @Test
+    public void testSnapshotRoundTrip() throws Exception {
+        Path path = Files.createTempDirectory("gh-snapshot").resolve("snapshot.bin");
+        MetricID stars = new MetricID("gh_repo_stars", new Tag("repo", "quarkusio/quarkus"));
+        MetricID labeled = new MetricID("gh_repo_open_issues", new Tag("repo", "quarkusio/quarkus"), new Tag("label", "kind/bug"));
+        long reset = System.currentTimeMillis() + 600_000;
+
+        GHSnapshotStore previousRun = store("http://localhost:1");
+        previousRun.collector.restore(Map.of(stars, 4328, labeled, 12L));
+        rateLimits(previousRun).update(GHEndpointFamily.SEARCH, Map.of(
+                "X-RateLimit-Limit", "30",
+                "X-RateLimit-Remaining", "17",
+                "X-RateLimit-Reset", String.valueOf(reset / 1000))::get);
+        previousRun.ghClient.getResponseCache().put("http://localhost:1/repos/quarkusio/quarkus", "\"abc\"", null,
+                new int[]{4328, 925, 788, 170, 50593}, Long.MAX_VALUE);
+        previousRun.ghClient.getResponseCache().put("http://localhost:1/search/issues?q=repo:quarkusio/quarkus", "\"def\"",
+                "Tue, 01 Sep 2026 10:00:00 GMT", 101, Long.MAX_VALUE);
+        previousRun.save(path);
+
+        GHSnapshotStore nextRun = store("http://localhost:1");
+        nextRun.load(path);
+
+        assertEquals(4328L, nextRun.collector.getValue(stars));
+        assertEquals(12L, nextRun.collector.getValue(labeled));
+        assertEquals(17, rateLimits(nextRun).getRemaining(GHEndpointFamily.SEARCH));
+        assertEquals(-1, rateLimits(nextRun).getRemaining(GHEndpointFamily.CORE));
+        assertEquals(2, nextRun.ghClient.getResponseCache().size());
+        int[] repository = nextRun.ghClient.getResponseCache().notModified("http://localhost:1/repos/quarkusio/quarkus");
+        assertEquals(50593, repository[4]);
+        assertEquals(Integer.valueOf(101),
+                nextRun.ghClient.getResponseCache().notModified("http://localhost:1/search/issues?q=repo:quarkusio/quarkus"));
+        StringBuilder headers = new StringBuilder();
+        nextRun.ghClient.getResponseCache().addConditionalHeaders("http://localhost:1/search/issues?q=repo:quarkusio/quarkus",
+                (name, value) -> headers.append(name).append('=').append(value).append(';'));
+        assertEquals("If-None-Match=\"def\";If-Modified-Since=Tue, 01 Sep 2026 10:00:00 GMT;", headers.toString());
+    }
+
+    @Test
+    public void testUnknownFileIsIgnored() throws Exception {
+        Path path = Files.createTempFile("gh-snapshot", ".bin");
+        Files.write(path, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+
+        GHSnapshotStore store = store("http://localhost:1");
+        store.load(path);
+
+        assertTrue(store.collector.getSnapshot().isEmpty());
+        assertNull(store.ghClient.getResponseCache().notModified("http://localhost:1/repos/quarkusio/quarkus"));
+    }
+
+    private static GHRateLimits rateLimits(GHSnapshotStore store) {
+        return store.ghClient.getTokenPool().getTokens().get(0).getRateLimits();
+    }
+
+    private static GHSnapshotStore store(String apiUrl) {
+        GHSnapshotStore store = new GHSnapshotStore();
+        store.snapshotPath = Optional.empty();
+        store.collector = new GHMetricsCollector();
+        store.ghClient = GHRepositoryGraphQLMetricsTest.stubClient(apiUrl);
+        return store;
+    }
+}
@@ -0,0 +1,101 @@
+package io.quarkus.qe.metrics;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup time of packaged exporter (JVM jar, native executable or container image) against {@link GHSimulator}
+ *
+ * The command is started the given number of times, every run measures time until /metrics answers (HTTP up)
+ * and until /gh-ready answers 200 (metrics registered and the first values fetched). Configuration is passed
+ * by environment variables, so container runs have to forward them with -e.
+ *
+ * Run with: java -cp target/classes:target/test-classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *   io.quarkus.qe.metrics.GHStartupBenchmark --runs=10 --command="java -jar target/quarkus-app/quarkus-run.jar"
+ */
+public class GHStartupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = GHLoadHarness.options(args);
+        String command = options.getOrDefault("command", "java -jar target/quarkus-app/quarkus-run.jar");
+        int runs = Integer.parseInt(options.getOrDefault("runs", "10"));
+        int repositories = Integer.parseInt(options.getOrDefault("repositories", "100"));
+        int port = Integer.parseInt(options.getOrDefault("port", "8080"));
+        Duration latency = GHLoadHarness.duration(options.getOrDefault("latency", "20ms"));
+        Duration timeout = GHLoadHarness.duration(options.getOrDefault("timeout", "2m"));
+
+        List<String> repositoryNames = new ArrayList<>();
+        for (int i = 0; i < repositories; i++) {
+            repositoryNames.add("benchmark/repository-" + i);
+        }
+        HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        long[] httpUp = new long[runs];
+        long[] ready = new long[runs];
+
+        try (GHSimulator simulator = new GHSimulator(0, 32).latency(latency)) {
+            System.out.printf("%s, %d repositories, API latency %s%n", command, repositories, latency);
+            System.out.println("run  HTTP up ms  ready ms");
+            for (int run = 0; run < runs; run++) {
+                ProcessBuilder builder = new ProcessBuilder(command.split(" "))
+                        .redirectErrorStream(true)
+                        .redirectOutput(ProcessBuilder.Redirect.DISCARD);
+                builder.environment().put("GH_API_URL", simulator.getUrl());
+                builder.environment().put("GH_TOKEN", "simulated");
+                builder.environment().put("GH_REPOS", String.join(",", repositoryNames));
+                builder.environment().put("QUARKUS_HTTP_PORT", String.valueOf(port));
+
+                long start = System.nanoTime();
+                Process process = builder.start();
+                try {
+                    httpUp[run] = waitFor(httpClient, "http://localhost:" + port + "/metrics", start, timeout, process);
+                    ready[run] = waitFor(httpClient, "http://localhost:" + port + "/gh-ready", start, timeout, process);
+                } finally {
+                    process.destroy();
+                    if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                        process.destroyForcibly();
+                    }
+                }
+                System.out.printf("%3d  %10.0f  %8.0f%n", run + 1, httpUp[run] / 1e6, ready[run] / 1e6);
+            }
+        }
+        report("HTTP up", httpUp);
+        report("ready", ready);
+    }
+
+    /**
+     * Poll the URL until it answers 200, returns nanoseconds since start
+     */
+    private static long waitFor(HttpClient httpClient, String url, long start, Duration timeout, Process process) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(1)).build();
+        while (System.nanoTime() - start < timeout.toNanos()) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Exporter exited with code " + process.exitValue());
+            }
+            try {
+                if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return System.nanoTime() - start;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException(url + " did not answer 200 within " + timeout);
+    }
+
+    private static void report(String name, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-8s min %8.0f ms  median %8.0f ms  max %8.0f ms%n", name,
+                sorted[0] / 1e6, sorted[sorted.length / 2] / 1e6, sorted[sorted.length - 1] / 1e6);
+    }
+}
@@ -0,0 +1,113 @@
+package io.quarkus.qe.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GHUtilsTest {
+
+    @Test
+    public void testCountFromLinkHeader() {
+        String link = "<https://api.github.com/repositories/139914932/pulls?per_page=1&page=2>; rel=\"next\", " +
+                "<https://api.github.com/repositories/139914932/pulls?per_page=1&page=90>; rel=\"last\"";
+        assertEquals(90, GHUtils.countFromLinkHeader(link, "[{}]"));
+        assertEquals(1, GHUtils.countFromLinkHeader(null, "[{\"id\": 1}]"));
+        assertEquals(0, GHUtils.countFromLinkHeader(null, "[]"));
+    }
+
+    @Test
+    public void testExtractTotalCount() throws IOException {
+        try (InputStream json = payload("search-issues.json")) {
+            assertEquals(101, GHUtils.extractTotalCount(json));
+        }
+    }
+
+    @Test
+    public void testExtractRepositoryFields() throws IOException {
+        try (InputStream json = payload("repos.json")) {
+            int[] values = GHUtils.extractIntFields(json, GHRepositoryBaseMetrics.GHRepository.FIELDS);
+            assertEquals(4328, values[0]);
+            assertEquals(1026, values[1]);
+            assertEquals(788, values[2]);
+            assertEquals(170, values[3]);
+            assertEquals(50593, values[4]);
+        }
+    }
+
+    @Test
+    public void testNestedFieldsAreIgnored() {
+        String json = "{\"parent\": {\"stargazers_count\": 1000, \"topics\": [\"a\"]}, \"stargazers_count\": 5}";
+        int[] values = GHUtils.extractIntFields(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), "stargazers_count");
+        assertEquals(5, values[0]);
+    }
+
+    @Test
+    public void testExtractRepositoryNames() throws IOException {
+        try (InputStream json = payload("org-repos.json")) {
+            assertEquals(List.of("quarkusio/quarkus", "quarkusio/quarkus-quickstarts"), GHUtils.extractRepositoryNames(json));
+        }
+    }
+
+    @Test
+    public void testExtractIssues() throws IOException {
+        Map<String, Integer> labelIds = new HashMap<>();
+        try (InputStream json = payload("issues.json")) {
+            List<GHIssueRecord> issues = GHUtils.extractIssues(json, label -> labelIds.computeIfAbsent(label, name -> labelIds.size()));
+            assertEquals(2, issues.size());
+
+            GHIssueRecord issue = issues.get(0);
+            assertEquals(41001, issue.number);
+            assertFalse(issue.pullRequest);
+            assertTrue(issue.open);
+            assertTrue(issue.hasLabel(labelIds.get("kind/bug")));
+            assertTrue(issue.hasLabel(labelIds.get("area/devmode")));
+            assertEquals(Instant.parse("2024-06-01T10:00:00Z").getEpochSecond(), issue.createdAt);
+            assertEquals(0L, issue.closedAt);
+
+            GHIssueRecord pullRequest = issues.get(1);
+            assertTrue(pullRequest.pullRequest);
+            assertFalse(pullRequest.open);
+            assertEquals(0, pullRequest.labels.length);
+            assertEquals(Instant.parse("2024-06-03T08:00:00Z").getEpochSecond(), pullRequest.mergedAt);
+            assertEquals(pullRequest.closedAt, pullRequest.updatedAt);
+        }
+    }
+
+    @Test
+    public void testNextPageFromLinkHeader() {
+        String link = "<https://api.github.com/organizations/47638783/repos?per_page=100&type=all&page=2>; rel=\"next\", " +
+                "<https://api.github.com/organizations/47638783/repos?per_page=100&type=all&page=7>; rel=\"last\"";
+        assertEquals("https://api.github.com/organizations/47638783/repos?per_page=100&type=all&page=2",
+                GHUtils.nextPageFromLinkHeader(link));
+        String lastPage = "<https://api.github.com/organizations/47638783/repos?per_page=100&type=all&page=1>; rel=\"first\", " +
+                "<https://api.github.com/organizations/47638783/repos?per_page=100&type=all&page=6>; rel=\"prev\"";
+        assertNull(GHUtils.nextPageFromLinkHeader(lastPage));
+        assertNull(GHUtils.nextPageFromLinkHeader(null));
+    }
+
+    @Test
+    public void testRetryAfterMillis() {
+        long now = Instant.parse("2015-10-21T07:27:00Z").toEpochMilli();
+        assertEquals(60_000L, GHUtils.retryAfterMillis("60", now));
+        assertEquals(60_000L, GHUtils.retryAfterMillis("Wed, 21 Oct 2015 07:28:00 GMT", now));
+        assertEquals(0L, GHUtils.retryAfterMillis("Wed, 21 Oct 2015 07:26:00 GMT", now));
+        assertEquals(0L, GHUtils.retryAfterMillis("soon", now));
+        assertEquals(0L, GHUtils.retryAfterMillis(null, now));
+    }
+
+    static InputStream payload(String name) {
+        return GHUtilsTest.class.getResourceAsStream("/payloads/" + name);
+    }
+}
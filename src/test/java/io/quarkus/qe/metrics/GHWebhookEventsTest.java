@@ -0,0 +1,116 @@
+package io.quarkus.qe.metrics;
+
+import org.eclipse.microprofile.metrics.MetricID;
+import org.eclipse.microprofile.metrics.Tag;
+import org.junit.jupiter.api.Test;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Webhook deliveries applied to collector values
+ */
+public class GHWebhookEventsTest {
+
+    private static final Tag REPO = new Tag("repo", "quarkusio/quarkus");
+    private static final Tag BUG = new Tag("label", "kind/bug");
+
+    @Test
+    public void testSignature() {
+        GHWebhookEvents webhookEvents = webhookEvents();
+        // example from GitHub documentation of webhook deliveries validation
+        byte[] body = "Hello, World!".getBytes(StandardCharsets.UTF_8);
+
+        assertTrue(webhookEvents.isSignatureValid(body, "sha256=757107ea0eb2509fc211221cce984b8a37570b6d7586c22c46f4379c8b043e17"));
+        assertFalse(webhookEvents.isSignatureValid(body, "sha256=" + "0".repeat(64)));
+        assertFalse(webhookEvents.isSignatureValid(body, "sha256=not-hex"));
+        assertFalse(webhookEvents.isSignatureValid(body, "sha1=abc"));
+        assertFalse(webhookEvents.isSignatureValid(body, null));
+    }
+
+    @Test
+    public void testClosedIssueMovesLabeledCounts() {
+        GHWebhookEvents webhookEvents = webhookEvents();
+        MetricID openIssues = new MetricID("gh_repo_open_issues", REPO);
+        MetricID closedIssues = new MetricID("gh_repo_closed_issues", REPO);
+        MetricID openBugs = new MetricID("gh_repo_open_issues", REPO, BUG);
+        MetricID closedBugs = new MetricID("gh_repo_closed_issues", REPO, BUG);
+        MetricID openIssuesAndPRs = new MetricID("gh_repo_open_issues_and_prs", REPO);
+        webhookEvents.collector.restore(Map.of(openIssues, 925, closedIssues, 2804, openBugs, 300, closedBugs, 1000,
+                openIssuesAndPRs, 1026));
+
+        webhookEvents.apply("issues", json("{\"action\": \"closed\", \"repository\": {\"full_name\": \"quarkusio/quarkus\"}," +
+                " \"issue\": {\"state\": \"closed\", \"labels\": [{\"name\": \"kind/bug\"}, {\"name\": \"area/core\"}]}}"));
+
+        assertEquals(924L, webhookEvents.collector.getValue(openIssues));
+        assertEquals(2805L, webhookEvents.collector.getValue(closedIssues));
+        assertEquals(299L, webhookEvents.collector.getValue(openBugs));
+        assertEquals(1001L, webhookEvents.collector.getValue(closedBugs));
+        assertEquals(1025L, webhookEvents.collector.getValue(openIssuesAndPRs));
+        assertFalse(webhookEvents.collector.getSnapshot().containsKey(
+                new MetricID("gh_repo_open_issues", REPO, new Tag("label", "area/core"))), "Untracked label must be ignored");
+    }
+
+    @Test
+    public void testMergedPullRequestAndStars() {
+        GHWebhookEvents webhookEvents = webhookEvents();
+        MetricID openPRs = new MetricID("gh_repo_open_prs", REPO);
+        MetricID mergedPRs = new MetricID("gh_repo_merged_prs", REPO);
+        MetricID stars = new MetricID("gh_repo_stars", REPO);
+        MetricID otherStars = new MetricID("gh_repo_stars", new Tag("repo", "quarkusio/other"));
+        webhookEvents.collector.restore(Map.of(openPRs, 101, mergedPRs, 4000, stars, 4328, otherStars, 10));
+
+        webhookEvents.apply("pull_request", json("{\"action\": \"closed\", \"repository\": {\"full_name\": \"quarkusio/quarkus\"}," +
+                " \"pull_request\": {\"state\": \"closed\", \"merged\": true, \"labels\": []}}"));
+        webhookEvents.apply("star", json("{\"action\": \"created\", \"repository\": {\"full_name\": \"quarkusio/quarkus\"}}"));
+
+        assertEquals(100L, webhookEvents.collector.getValue(openPRs));
+        assertEquals(4001L, webhookEvents.collector.getValue(mergedPRs));
+        assertEquals(4329L, webhookEvents.collector.getValue(stars));
+        assertEquals(10, webhookEvents.collector.getValue(otherStars));
+    }
+
+    @Test
+    public void testRedeliveryIsAppliedOnce() throws Exception {
+        GHWebhookResource resource = new GHWebhookResource();
+        resource.webhookEvents = webhookEvents();
+        MetricID stars = new MetricID("gh_repo_stars", REPO);
+        resource.webhookEvents.collector.restore(Map.of(stars, 4328));
+        byte[] body = "{\"action\": \"created\", \"repository\": {\"full_name\": \"quarkusio/quarkus\"}}"
+                .getBytes(StandardCharsets.UTF_8);
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(resource.webhookEvents.secret.get().getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        String signature = "sha256=" + HexFormat.of().formatHex(mac.doFinal(body));
+
+        assertEquals(202, resource.receive("star", "72d3162e-cc78-11e3-81ab-4c9367dc0958", signature, body).getStatus());
+        assertEquals(200, resource.receive("star", "72d3162e-cc78-11e3-81ab-4c9367dc0958", signature, body).getStatus());
+        assertEquals(4329L, resource.webhookEvents.collector.getValue(stars));
+
+        assertEquals(202, resource.receive("star", "9a5b1f40-cc78-11e3-8c1f-4c9367dc0958", signature, body).getStatus());
+        assertEquals(4330L, resource.webhookEvents.collector.getValue(stars));
+    }
+
+    private static GHWebhookEvents webhookEvents() {
+        GHWebhookEvents webhookEvents = new GHWebhookEvents();
+        webhookEvents.secret = Optional.of("It's a Secret to Everybody");
+        webhookEvents.reconcilePeriod = Duration.ofMinutes(15);
+        webhookEvents.collector = new GHMetricsCollector();
+        return webhookEvents;
+    }
+
+    private static JsonObject json(String json) {
+        return Json.createReader(new StringReader(json)).readObject();
+    }
+}
@@ -0,0 +1,134 @@
+package io.quarkus.qe.metrics;
+
+import org.eclipse.microprofile.metrics.MetricID;
+import org.eclipse.microprofile.metrics.Tag;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Background startup waiting for GitHub API
+ */
+public class GitHubMetricsTest {
+
+    private GHExporterFixture exporter;
+    private GHSimulator simulator;
+
+    @AfterEach
+    public void close() {
+        if (exporter != null) {
+            exporter.close();
+        }
+        if (simulator != null) {
+            simulator.close();
+        }
+    }
+
+    @Test
+    public void testStartupWaitsForGitHub() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        exporter = new GHExporterFixture("http://localhost:" + port, 1);
+        GitHubMetrics gitHubMetrics = gitHubMetrics(exporter);
+        MetricID stars = new MetricID("gh_repo_stars", new Tag("repo", "quarkusio/quarkus"));
+        exporter.collector.restore(Map.of(stars, 4328));
+
+        Thread startup = new Thread(() -> gitHubMetrics.startWithRetry(System.currentTimeMillis()));
+        startup.start();
+        Thread.sleep(300);
+        assertEquals(GitHubMetrics.StartupState.VALIDATING_TOKENS, gitHubMetrics.getStartupState());
+        assertFalse(gitHubMetrics.isReady());
+        assertEquals(1, exporter.ghClient.getTokenPool().getTokens().size(), "Unreachable API must not evict tokens");
+        // restored values are served while GitHub is unreachable
+        assertEquals(2, gitHubMetrics.getRepositoryCount());
+        exporter.collector.refresh();
+        assertEquals(4328, exporter.registry.getGauge(stars).getValue());
+
+        simulator = new GHSimulator(port, 4);
+        startup.join(10_000);
+        assertEquals(GitHubMetrics.StartupState.READY, gitHubMetrics.getStartupState());
+        assertEquals(2, gitHubMetrics.getRepositoryCount());
+        assertTrue(gitHubMetrics.getStartupMillis() > 0);
+        assertTrue(exporter.collector.getValue(stars).longValue() > 0);
+    }
+
+    @Test
+    public void testRestoredSeriesOfUnregisteredRepositoryAreDropped() throws Exception {
+        simulator = new GHSimulator();
+        exporter = new GHExporterFixture(simulator.getUrl(), 1);
+        GitHubMetrics gitHubMetrics = gitHubMetrics(exporter);
+        MetricID stars = new MetricID("gh_repo_stars", new Tag("repo", "quarkusio/quarkus"));
+        MetricID removed = new MetricID("gh_repo_stars", new Tag("repo", "quarkusio/removed"));
+        exporter.collector.restore(Map.of(stars, 4328, removed, 10));
+
+        gitHubMetrics.startWithRetry(System.currentTimeMillis());
+        assertEquals(GitHubMetrics.StartupState.READY, gitHubMetrics.getStartupState());
+        assertTrue(exporter.collector.getSnapshot().containsKey(stars));
+        assertFalse(exporter.collector.getSnapshot().containsKey(removed), "Series of removed repository must be dropped");
+    }
+
+    @Test
+    public void testNoValidTokenUnregistersMetrics() throws Exception {
+        simulator = new GHSimulator().invalidToken("test-token");
+        exporter = new GHExporterFixture(simulator.getUrl(), 1);
+        GitHubMetrics gitHubMetrics = gitHubMetrics(exporter);
+
+        gitHubMetrics.startWithRetry(System.currentTimeMillis());
+        assertEquals(GitHubMetrics.StartupState.NO_VALID_TOKEN, gitHubMetrics.getStartupState());
+        assertEquals(0, gitHubMetrics.getRepositoryCount());
+        assertTrue(exporter.registry.getGauges().isEmpty());
+    }
+
+    private static GitHubMetrics gitHubMetrics(GHExporterFixture exporter) {
+        GitHubMetrics gitHubMetrics = new GitHubMetrics();
+        gitHubMetrics.ghRepos = Optional.of(List.of("quarkusio/quarkus", "quarkusio/quarkus-quickstarts"));
+        gitHubMetrics.ghDetailsLevel = GitHubMetrics.GHDetailsLevel.BASE;
+        gitHubMetrics.ghBackend = GitHubMetrics.GHBackend.REST;
+        gitHubMetrics.startupRetryInitial = Duration.ofMillis(100);
+        gitHubMetrics.startupRetryMax = Duration.ofMillis(200);
+        gitHubMetrics.registry = exporter.registry;
+        gitHubMetrics.ghClient = exporter.ghClient;
+        gitHubMetrics.tokenPool = exporter.ghClient.getTokenPool();
+        gitHubMetrics.collector = exporter.collector;
+        gitHubMetrics.ghRepositoryBaseMetrics = exporter.baseMetrics;
+        gitHubMetrics.planner = exporter.planner;
+        gitHubMetrics.issueIndex = exporter.issueIndex;
+        gitHubMetrics.gitMirror = exporter.gitMirror;
+        gitHubMetrics.ghRepositoryGraphQLMetrics = new GHRepositoryGraphQLMetrics();
+
+        gitHubMetrics.sharding = new GHSharding();
+        gitHubMetrics.sharding.shardCount = 1;
+        gitHubMetrics.sharding.peers = Optional.empty();
+        gitHubMetrics.sharding.self = Optional.empty();
+        gitHubMetrics.sharding.virtualNodes = 128;
+        gitHubMetrics.sharding.init();
+
+        gitHubMetrics.organizationDiscovery = new GHOrganizationDiscovery();
+        gitHubMetrics.organizationDiscovery.organizations = Optional.empty();
+        gitHubMetrics.webhookEvents = new GHWebhookEvents();
+        gitHubMetrics.webhookEvents.secret = Optional.empty();
+
+        GHExporterMetrics exporterMetrics = new GHExporterMetrics();
+        exporterMetrics.ghClient = exporter.ghClient;
+        exporterMetrics.ghRepositoryBaseMetrics = exporter.baseMetrics;
+        exporterMetrics.pushExporter = new GHPushExporter();
+        exporterMetrics.collector = exporter.collector;
+        exporterMetrics.planner = exporter.planner;
+        exporterMetrics.issueIndex = exporter.issueIndex;
+        exporterMetrics.gitHubMetrics = gitHubMetrics;
+        gitHubMetrics.ghExporterMetrics = exporterMetrics;
+        return gitHubMetrics;
+    }
+}